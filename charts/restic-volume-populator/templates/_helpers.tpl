@@ -60,3 +60,30 @@ Create the name of the service account to use
 {{- default "default" .Values.serviceAccount.name }}
 {{- end }}
 {{- end }}
+
+{{/*
+Rules for the namespaced resources, granted cluster-wide or per watched namespace
+*/}}
+{{- define "restic-volume-populator.namespacedRules" -}}
+- apiGroups: [""]
+  resources:
+    - pods
+    - persistentvolumeclaims
+  verbs: ["get", "watch", "list", "create", "update", "patch", "delete"]
+- apiGroups: [""]
+  resources:
+    - pods/log
+  verbs: ["get", "watch", "list"]
+- apiGroups: ["events.k8s.io"]
+  resources:
+    - events
+  verbs: ["create", "patch"]
+- apiGroups: ["ansarhun.github.com"]
+  resources:
+    - resticvolumepopulators
+  verbs: ["get", "watch", "list", "update"]
+- apiGroups: ["ansarhun.github.com"]
+  resources:
+    - resticvolumepopulators/status
+  verbs: ["patch"]
+{{- end }}
@@ -0,0 +1,129 @@
+package com.github.ansarhun.resticvolumepopulator.event;
+
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import lombok.Data;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/// Informer callback dispatch: Spring application events with generic type resolution (the previous
+/// `PublishResourceEventHandler` path) against [ResourceEventDispatcher]
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventDispatchBenchmark {
+
+    private AnnotationConfigApplicationContext applicationContext;
+    private Listeners listeners;
+
+    private ResourceEventDispatcher resourceEventDispatcher;
+    private ResourceEventHandler<Pod> podHandler;
+
+    private Pod oldPod;
+    private Pod newPod;
+
+    @Setup
+    public void setUp() {
+        applicationContext = new AnnotationConfigApplicationContext(Listeners.class);
+        listeners = applicationContext.getBean(Listeners.class);
+
+        resourceEventDispatcher = new ResourceEventDispatcher();
+        resourceEventDispatcher.register(
+                Pod.class,
+                ResourceEventListener.<Pod>builder()
+                        .onAdd(pod -> listeners.count++)
+                        .onUpdate((oldPod, newPod) -> listeners.count++)
+                        .build()
+        );
+        resourceEventDispatcher.register(
+                PersistentVolumeClaim.class,
+                ResourceEventListener.<PersistentVolumeClaim>builder()
+                        .onUpdate((oldPvc, newPvc) -> listeners.count++)
+                        .build()
+        );
+        podHandler = resourceEventDispatcher.forType(Pod.class);
+
+        oldPod = new PodBuilder()
+                .withNewMetadata()
+                    .withName("prime-test")
+                    .withNamespace("default")
+                    .withResourceVersion("1")
+                .endMetadata()
+                .build();
+        newPod = new PodBuilder(oldPod)
+                .editMetadata()
+                    .withResourceVersion("2")
+                .endMetadata()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public long springApplicationEvent() {
+        applicationContext.publishEvent(new ResourceUpdated<>(oldPod, newPod));
+        return listeners.count;
+    }
+
+    @Benchmark
+    public long resourceEventDispatcher() {
+        podHandler.onUpdate(oldPod, newPod);
+        return listeners.count;
+    }
+
+    public static class Listeners {
+        long count;
+
+        @EventListener
+        public void podAdded(ResourceAdded<Pod> event) {
+            count++;
+        }
+
+        @EventListener
+        public void podUpdated(ResourceUpdated<Pod> event) {
+            count++;
+        }
+
+        @EventListener
+        public void pvcUpdated(ResourceUpdated<PersistentVolumeClaim> event) {
+            count++;
+        }
+    }
+
+    @Data
+    public static class ResourceAdded<T> implements ResolvableTypeProvider {
+        private final T resource;
+
+        @Override
+        public ResolvableType getResolvableType() {
+            return ResolvableType.forClassWithGenerics(
+                    getClass(),
+                    ResolvableType.forInstance(resource)
+            );
+        }
+    }
+
+    @Data
+    public static class ResourceUpdated<T> implements ResolvableTypeProvider {
+        private final T oldResource;
+        private final T newResource;
+
+        @Override
+        public ResolvableType getResolvableType() {
+            return ResolvableType.forClassWithGenerics(
+                    getClass(),
+                    ResolvableType.forInstance(oldResource)
+            );
+        }
+    }
+}
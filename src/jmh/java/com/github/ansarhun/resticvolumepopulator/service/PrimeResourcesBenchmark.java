@@ -0,0 +1,66 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorSpec;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Quantity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/// Building the prime PVC and pod for a populated PVC
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PrimeResourcesBenchmark {
+
+    private PersistentVolumeClaim pvc;
+    private ResticVolumePopulator volumePopulator;
+    private String primeName;
+
+    @Setup
+    public void setUp() {
+        pvc = new PersistentVolumeClaimBuilder()
+                .withNewMetadata()
+                    .withName("data")
+                    .withNamespace("default")
+                .endMetadata()
+                .withNewSpec()
+                    .withAccessModes("ReadWriteOnce")
+                    .withStorageClassName("standard")
+                    .withVolumeMode("Filesystem")
+                    .withNewResources()
+                        .addToRequests("storage", new Quantity("1Gi"))
+                    .endResources()
+                .endSpec()
+                .build();
+
+        ResticVolumePopulatorSpec spec = new ResticVolumePopulatorSpec();
+        spec.setSecretName("restic");
+        spec.setHostname("host");
+
+        volumePopulator = new ResticVolumePopulator();
+        volumePopulator.getMetadata().setName("backup");
+        volumePopulator.getMetadata().setNamespace("default");
+        volumePopulator.setSpec(spec);
+
+        primeName = PrimeResources.getPrimeName(pvc);
+    }
+
+    @Benchmark
+    public String primeName() {
+        return PrimeResources.getPrimeName(pvc);
+    }
+
+    @Benchmark
+    public PersistentVolumeClaim createPrimePVC() {
+        return PrimeResources.createPrimePVC(pvc, volumePopulator, primeName);
+    }
+
+    @Benchmark
+    public Pod createPrimePod() {
+        return PrimeResources.createPrimePod(pvc, volumePopulator, primeName);
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.ansarhun.resticvolumepopulator.service.ResourceIndexes.*;
+
+/// Per informer event work: the PVC predicate and indexers, the owner annotation lookup and
+/// `namespace/name` references
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResourceIndexesBenchmark {
+
+    private PersistentVolumeClaim populatedPvc;
+    private PersistentVolumeClaim plainPvc;
+    private Pod primePod;
+    private String reference;
+
+    @Setup
+    public void setUp() {
+        populatedPvc = new PersistentVolumeClaimBuilder()
+                .withNewMetadata()
+                    .withName("data")
+                    .withNamespace("default")
+                .endMetadata()
+                .withNewSpec()
+                    .withNewDataSourceRef()
+                        .withApiGroup(RESTC_VOLUME_POPULATOR_API_GROUP)
+                        .withKind(RESTC_VOLUME_POPULATOR_KIND)
+                        .withName("backup")
+                    .endDataSourceRef()
+                .endSpec()
+                .build();
+        plainPvc = new PersistentVolumeClaimBuilder()
+                .withNewMetadata()
+                    .withName("other")
+                    .withNamespace("default")
+                .endMetadata()
+                .withNewSpec()
+                .endSpec()
+                .build();
+        primePod = new PodBuilder()
+                .withNewMetadata()
+                    .withName("prime-data")
+                    .withNamespace("default")
+                    .addToLabels(PRIME_LABEL_KEY, PRIME_LABEL_VALUE)
+                    .addToAnnotations(OWNER_ANNOTATION_KEY, "default/data")
+                .endMetadata()
+                .build();
+        reference = "default/data";
+    }
+
+    @Benchmark
+    public boolean isPvcWithResticVolumePopulatorMatch() {
+        return isPvcWithResticVolumePopulator(populatedPvc);
+    }
+
+    @Benchmark
+    public boolean isPvcWithResticVolumePopulatorMiss() {
+        return isPvcWithResticVolumePopulator(plainPvc);
+    }
+
+    @Benchmark
+    public List<String> pvcByVolumePopulatorIndex() {
+        return pvcByVolumePopulator(populatedPvc);
+    }
+
+    @Benchmark
+    public String ownerReference() {
+        return getOwnerReference(primePod);
+    }
+
+    @Benchmark
+    public List<String> byOwnerIndex() {
+        return byOwner(primePod);
+    }
+
+    @Benchmark
+    public ResourceId resourceIdFromReference() {
+        return ResourceId.fromReference(reference);
+    }
+
+    @Benchmark
+    public String resourceIdToReference() {
+        return new ResourceId(populatedPvc).toReference();
+    }
+}
@@ -0,0 +1,212 @@
+package com.github.ansarhun.resticvolumepopulator.component;
+
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import com.github.ansarhun.resticvolumepopulator.service.ReconcileService;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderCallbacks;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfigBuilder;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaderElectionRecord;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.Lock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextStoppedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/// Runs the reconcile workers only on the replica holding the leader Lease
+///
+/// Standby replicas start their informers and fill the reconcile queue like the leader, so a new leader starts
+/// reconciling right away. Losing the Lease while running stops the application, the restarted replica joins
+/// as a standby.
+@RequiredArgsConstructor
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "application.leader-election", name = "enabled")
+public class LeaderElection {
+
+    private final ApplicationProperties applicationProperties;
+    private final KubernetesClient kubernetesClient;
+    private final ReconcileService reconcileService;
+    private final ApplicationContext applicationContext;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean leading = new AtomicBoolean();
+    private final AtomicBoolean stopping = new AtomicBoolean();
+
+    private ObservingLock lock;
+    private CompletableFuture<?> elector;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order
+    public void start() {
+        if (applicationProperties.getSharding().isEnabled()) {
+            log.warn("Sharding enabled, every replica reconciles its shard and leader election is skipped");
+            return;
+        }
+
+        ApplicationProperties.LeaderElection leaderElection = applicationProperties.getLeaderElection();
+
+        String namespace = leaderElection.getLeaseNamespace() != null
+                ? leaderElection.getLeaseNamespace()
+                : kubernetesClient.getNamespace();
+        String identity = System.getenv("HOSTNAME") != null
+                ? System.getenv("HOSTNAME")
+                : UUID.randomUUID().toString();
+
+        Gauge
+                .builder("leader.election.leader", leading, l -> l.get() ? 1 : 0)
+                .description("Whether this replica holds the leader Lease")
+                .register(meterRegistry);
+
+        lock = new ObservingLock(new LeaseLock(namespace, leaderElection.getLeaseName(), identity));
+
+        log.info("Starting leader election for Lease {}/{} as {}", namespace, leaderElection.getLeaseName(), identity);
+        elector = kubernetesClient
+                .leaderElector()
+                .withConfig(
+                        new LeaderElectionConfigBuilder()
+                                .withName(leaderElection.getLeaseName())
+                                .withLock(lock)
+                                .withLeaseDuration(leaderElection.getLeaseDuration())
+                                .withRenewDeadline(leaderElection.getRenewDeadline())
+                                .withRetryPeriod(leaderElection.getRetryPeriod())
+                                .withReleaseOnCancel(true)
+                                .withLeaderCallbacks(
+                                        new LeaderCallbacks(this::startedLeading, this::stoppedLeading, this::newLeader)
+                                )
+                                .build()
+                )
+                .build()
+                .start();
+    }
+
+    /// Releases the Lease after the workers drained, so a standby does not wait for the Lease to expire
+    @EventListener({ContextStoppedEvent.class, ContextClosedEvent.class})
+    @Order
+    public void stop() {
+        if (!stopping.compareAndSet(false, true) || elector == null) {
+            return;
+        }
+
+        reconcileService.drainWorkers();
+        elector.cancel(true);
+    }
+
+    private void startedLeading() {
+        leading.set(true);
+
+        LeaderElectionRecord previous = lock.getPreviousRecord();
+        Duration failover = failover(previous, ZonedDateTime.now());
+        if (failover != null) {
+            Timer
+                    .builder("leader.election.failover")
+                    .description("Time from the last renewal or the release of the previous leader until this replica took over")
+                    .register(meterRegistry)
+                    .record(failover);
+            log.info("Acquired leadership from {} after {}", describeHolder(previous), failover);
+        } else {
+            log.info("Acquired leadership");
+        }
+
+        reconcileService.startWorkers();
+    }
+
+    private void stoppedLeading() {
+        leading.set(false);
+
+        if (stopping.get()) {
+            log.info("Released leadership");
+            return;
+        }
+
+        log.error("Lost leadership, stopping the application");
+        reconcileService.drainWorkers();
+
+        // exit from a separate thread, closing the context cancels the elector calling this callback
+        Thread.ofPlatform()
+                .name("leader-election-exit")
+                .start(() -> System.exit(SpringApplication.exit(applicationContext, () -> 1)));
+    }
+
+    private void newLeader(String identity) {
+        log.info("Leader is {}", identity);
+    }
+
+    /// Time since the previous leader stopped renewing, a released record carries the time of the release
+    static Duration failover(LeaderElectionRecord previous, ZonedDateTime takeover) {
+        if (previous == null || previous.getRenewTime() == null) {
+            return null;
+        }
+
+        Duration failover = Duration.between(previous.getRenewTime(), takeover);
+        // clock skew between the replicas
+        return failover.isNegative() ? Duration.ZERO : failover;
+    }
+
+    private static String describeHolder(LeaderElectionRecord record) {
+        return isReleased(record) ? "released Lease" : record.getHolderIdentity();
+    }
+
+    private static boolean isReleased(LeaderElectionRecord record) {
+        return record.getHolderIdentity() == null || record.getHolderIdentity().isEmpty();
+    }
+
+    /// Remembers the last record not held by this replica, the Lease taken over. A Lease released on a graceful
+    /// shutdown has no holder but is kept, the planned handover of a node drain is measured from its release.
+    @RequiredArgsConstructor
+    static class ObservingLock implements Lock {
+
+        private final Lock delegate;
+
+        private volatile LeaderElectionRecord previousRecord;
+
+        LeaderElectionRecord getPreviousRecord() {
+            return previousRecord;
+        }
+
+        @Override
+        public LeaderElectionRecord get(KubernetesClient client) {
+            LeaderElectionRecord record = delegate.get(client);
+            if (record != null && (isReleased(record) || !record.getHolderIdentity().equals(identity()))) {
+                previousRecord = record;
+            }
+            return record;
+        }
+
+        @Override
+        public void create(KubernetesClient client, LeaderElectionRecord leaderElectionRecord) {
+            delegate.create(client, leaderElectionRecord);
+        }
+
+        @Override
+        public void update(KubernetesClient client, LeaderElectionRecord leaderElectionRecord) {
+            delegate.update(client, leaderElectionRecord);
+        }
+
+        @Override
+        public String identity() {
+            return delegate.identity();
+        }
+
+        @Override
+        public String describe() {
+            return delegate.describe();
+        }
+    }
+}
@@ -1,12 +1,177 @@
 package com.github.ansarhun.resticvolumepopulator.config;
 
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @Component
 @ConfigurationProperties(prefix = "application")
 public class ApplicationProperties {
     private boolean bootstrapCrds;
+
+    private Reconcile reconcile = new Reconcile();
+
+    private Admission admission = new Admission();
+
+    private Informers informers = new Informers();
+
+    private PrimePodLog primePodLog = new PrimePodLog();
+
+    private Progress progress = new Progress();
+
+    private Events events = new Events();
+
+    private LeaderElection leaderElection = new LeaderElection();
+
+    private Sharding sharding = new Sharding();
+
+    @Data
+    public static class Reconcile {
+        /// Number of keys reconciled in parallel, a PVC and its volume populator are never reconciled by two workers
+        /// at once
+        private int workers = 4;
+
+        /// Backoff of the first retry of a failed key, doubled on every further failure
+        private Duration retryBaseDelay = Duration.ofMillis(500);
+        private Duration retryMaxDelay = Duration.ofMinutes(5);
+
+        /// Global limit of retries across all keys
+        private double retryQps = 10;
+        private int retryBurst = 100;
+
+        /// Waiting this long outweighs one level of volume populator priority, in the reconcile queue and for
+        /// prime pod slots
+        private Duration priorityAging = Duration.ofSeconds(30);
+
+        /// Share of the workers of a namespace with queued reconciles relative to the other namespaces, 1 when
+        /// not listed. A namespace with a large backlog only delays the others by its share.
+        private Map<String, Integer> namespaceWeights = new HashMap<>();
+
+        /// Also record the queue wait per namespace as `reconcile.queue.namespace.wait`, one timer for every
+        /// namespace that had a reconcile
+        private boolean namespaceWaitMetrics;
+
+        /// Time given to running reconciles to finish on shutdown or when losing leadership
+        private Duration drainTimeout = Duration.ofSeconds(20);
+
+        /// Delay before checking again when waiting for another resource, e.g. the prime PVC to become `Lost`
+        private Duration waitInterval = Duration.ofSeconds(10);
+
+        /// Periodic reconcile of a PVC by the status of its volume populator, states without a period are only
+        /// reconciled on events
+        private Map<ResticVolumePopulatorStatus.Status, Duration> resyncPeriods = new EnumMap<>(Map.of(
+                ResticVolumePopulatorStatus.Status.BOUND, Duration.ofMinutes(1),
+                ResticVolumePopulatorStatus.Status.QUEUED, Duration.ofMinutes(1),
+                ResticVolumePopulatorStatus.Status.PROVISIONING, Duration.ofMinutes(5),
+                ResticVolumePopulatorStatus.Status.CLEANUP, Duration.ofMinutes(1)
+        ));
+    }
+
+    /// Limits of restores with a prime pod, further volume populators wait in `QUEUED`. 0 disables a limit.
+    @Data
+    public static class Admission {
+        private int maxActive;
+        private int maxActivePerNamespace;
+
+        /// Restores from the same restic repository, the secret of the volume populator
+        private int maxActivePerSecret;
+    }
+
+    @Data
+    public static class PrimePodLog {
+        /// Lines kept from the end of the prime pod log
+        private int tailLines = 20;
+
+        /// Longer lines are cut, restic progress output can be a single very long line
+        private int maxLineLength = 1024;
+    }
+
+    @Data
+    public static class Progress {
+        /// Follow the restic output of running prime pods and publish the progress into the status
+        private boolean enabled = true;
+
+        /// Minimum time between two progress updates of the same volume populator
+        private Duration updateInterval = Duration.ofSeconds(10);
+
+        /// Prime pods followed at once, each holds a thread and a log stream. Further restores wait in order and
+        /// are followed as soon as a follower is free.
+        private int maxFollowed = 16;
+    }
+
+    @Data
+    public static class Events {
+        /// Events waiting to be written, further events are dropped
+        private int queueCapacity = 1000;
+
+        /// Events taken from the queue at once, identical events of a batch are written once
+        private int batchSize = 100;
+
+        /// Global limit of event writes
+        private double qps = 5;
+        private int burst = 25;
+
+        /// Limit of event writes per object, by default one event every 5 minutes after the burst
+        private double perObjectQps = 1d / 300;
+        private int perObjectBurst = 25;
+
+        /// Repeats of an event within this window are counted in the series of the first event
+        private Duration seriesWindow = Duration.ofMinutes(6);
+    }
+
+    @Data
+    public static class LeaderElection {
+        /// Reconcile only on the replica holding the Lease, the other replicas keep their caches warm as standby
+        private boolean enabled;
+
+        private String leaseName = "restic-volume-populator";
+
+        /// Namespace of the Lease, defaults to the namespace of the client
+        private String leaseNamespace;
+
+        /// A standby takes over at most this long after the leader stopped renewing
+        private Duration leaseDuration = Duration.ofSeconds(15);
+        private Duration renewDeadline = Duration.ofSeconds(10);
+        private Duration retryPeriod = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Sharding {
+        /// Split the namespaces between all replicas of the shard group, replaces leader election
+        private boolean enabled;
+
+        /// Name shared by the Leases of all replicas, each replica holds the Lease `<group>-<hostname>`
+        private String group = "restic-volume-populator-shard";
+
+        /// Namespace of the Leases, defaults to the namespace of the client
+        private String leaseNamespace;
+
+        /// Namespaces of a replica move to the others at most this long after it stopped renewing
+        private Duration leaseDuration = Duration.ofSeconds(15);
+        private Duration renewInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Informers {
+        /// Namespaces to watch with one informer each, all namespaces are watched by a single informer when empty
+        private List<String> namespaces = new ArrayList<>();
+
+        /// Cache only the PVC fields read by the controller
+        private boolean trimPersistentVolumeClaims = true;
+
+        /// Full resync of every cached PVC, zero disables it
+        private Duration pvcResyncPeriod = Duration.ofHours(10);
+
+        /// PVCs fetched per request when the informer lists them, zero lists all PVCs in one response
+        private long pvcListPageSize = 500;
+    }
 }
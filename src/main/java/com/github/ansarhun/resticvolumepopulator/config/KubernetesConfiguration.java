@@ -1,17 +1,24 @@
 package com.github.ansarhun.resticvolumepopulator.config;
 
-import com.github.ansarhun.resticvolumepopulator.event.PublishResourceEventHandler;
+import com.github.ansarhun.resticvolumepopulator.event.ResourceEventDispatcher;
+import com.github.ansarhun.resticvolumepopulator.informer.InformerGroup;
+import com.github.ansarhun.resticvolumepopulator.informer.PersistentVolumeClaimTransform;
+import com.github.ansarhun.resticvolumepopulator.informer.TransformingItemStore;
 import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.service.ResourceIndexes;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
-import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Informable;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
-import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,6 +27,8 @@ import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -28,7 +37,6 @@ import java.util.concurrent.TimeoutException;
 @Configuration
 public class KubernetesConfiguration {
     private static final int NO_RESYNC = 0;
-    private static final int RESYNC_PERIOD = 60_000;
 
     /// region Client
 
@@ -51,12 +59,17 @@ public class KubernetesConfiguration {
     @Bean
     @Order(Ordered.LOWEST_PRECEDENCE - 1)
     public ApplicationListener<ApplicationReadyEvent> start(
-            SharedInformerFactory sharedInformerFactory
+            List<InformerGroup<?>> informers
     ) {
         return args -> {
             try {
-                sharedInformerFactory
-                        .startAllRegisteredInformers()
+                CompletableFuture
+                        .allOf(
+                                informers
+                                        .stream()
+                                        .map(InformerGroup::start)
+                                        .toArray(CompletableFuture[]::new)
+                        )
                         .get(10, TimeUnit.SECONDS);
             } catch (InterruptedException | ExecutionException | TimeoutException e) {
                 throw new RuntimeException(e);
@@ -67,9 +80,9 @@ public class KubernetesConfiguration {
 
     @Bean
     public ApplicationListener<ContextStoppedEvent> stop(
-            SharedInformerFactory sharedInformerFactory
+            List<InformerGroup<?>> informers
     ) {
-        return event -> sharedInformerFactory.stopAllRegisteredInformers();
+        return event -> informers.forEach(InformerGroup::stop);
     }
 
     /// endregion
@@ -77,42 +90,75 @@ public class KubernetesConfiguration {
     /// region Informers
 
     @Bean
-    public SharedInformerFactory sharedInformerFactory(KubernetesClient client) {
-        return client.informers();
+    public InformerGroup<Pod> podInformer(
+            KubernetesClient client,
+            ApplicationProperties applicationProperties,
+            ResourceEventDispatcher resourceEventDispatcher
+    ) {
+        InformerGroup<Pod> informerGroup = new InformerGroup<>(
+                applicationProperties.getInformers().getNamespaces(),
+                namespace -> inNamespace(client.pods(), namespace)
+                        .withLabel(ResourceIndexes.PRIME_LABEL_KEY, ResourceIndexes.PRIME_LABEL_VALUE)
+                        .runnableInformer(NO_RESYNC)
+        );
+        informerGroup.addIndexers(Map.of(
+                ResourceIndexes.BY_OWNER, ResourceIndexes::byOwner
+        ));
+        informerGroup.addEventHandler(resourceEventDispatcher.forType(Pod.class));
+        return informerGroup;
     }
 
     @Bean
-    public SharedIndexInformer<Pod> podInformer(
-            SharedInformerFactory factory,
-            List<ResourceEventHandler<Pod>> eventHandlers
+    public InformerGroup<PersistentVolumeClaim> pvcInformer(
+            KubernetesClient client,
+            ApplicationProperties applicationProperties,
+            ResourceEventDispatcher resourceEventDispatcher
     ) {
-        SharedIndexInformer<Pod> sharedIndexInformer =
-                factory.sharedIndexInformerFor(Pod.class, NO_RESYNC);
-        eventHandlers.forEach(sharedIndexInformer::addEventHandler);
-        return sharedIndexInformer;
+        ApplicationProperties.Informers informers = applicationProperties.getInformers();
+        InformerGroup<PersistentVolumeClaim> informerGroup = new InformerGroup<>(
+                informers.getNamespaces(),
+                namespace -> {
+                    Informable<PersistentVolumeClaim> informable = inNamespace(client.persistentVolumeClaims(), namespace);
+                    if (informers.getPvcListPageSize() > 0) {
+                        // the initial list is decoded page by page instead of as one response of every PVC
+                        informable = informable.withLimit(informers.getPvcListPageSize());
+                    }
+
+                    SharedIndexInformer<PersistentVolumeClaim> sharedIndexInformer =
+                            informable.runnableInformer(informers.getPvcResyncPeriod().toMillis());
+                    if (informers.isTrimPersistentVolumeClaims()) {
+                        sharedIndexInformer.itemStore(new TransformingItemStore<>(new PersistentVolumeClaimTransform()));
+                    }
+                    return sharedIndexInformer;
+                }
+        );
+        informerGroup.addIndexers(Map.of(
+                ResourceIndexes.PVC_BY_VOLUME_POPULATOR, ResourceIndexes::pvcByVolumePopulator,
+                ResourceIndexes.BY_OWNER, ResourceIndexes::byOwner
+        ));
+        informerGroup.addEventHandler(resourceEventDispatcher.forType(PersistentVolumeClaim.class));
+
+        return informerGroup;
     }
 
     @Bean
-    public SharedIndexInformer<PersistentVolumeClaim> pvcInformer(
-            SharedInformerFactory factory,
-            List<ResourceEventHandler<PersistentVolumeClaim>> eventHandlers
+    public InformerGroup<ResticVolumePopulator> resticVolumePopulatorInformer(
+            KubernetesClient client,
+            ApplicationProperties applicationProperties,
+            ResourceEventDispatcher resourceEventDispatcher
     ) {
-        SharedIndexInformer<PersistentVolumeClaim> sharedIndexInformer =
-                factory.sharedIndexInformerFor(PersistentVolumeClaim.class, RESYNC_PERIOD);
-        eventHandlers.forEach(sharedIndexInformer::addEventHandler);
-
-        return sharedIndexInformer;
+        InformerGroup<ResticVolumePopulator> informerGroup = new InformerGroup<>(
+                applicationProperties.getInformers().getNamespaces(),
+                namespace -> inNamespace(client.resources(ResticVolumePopulator.class), namespace)
+                        .runnableInformer(NO_RESYNC)
+        );
+        informerGroup.addEventHandler(resourceEventDispatcher.forType(ResticVolumePopulator.class));
+        return informerGroup;
     }
 
-    @Bean
-    public SharedIndexInformer<ResticVolumePopulator> resticVolumePopulatorInformer(
-            SharedInformerFactory factory,
-            List<ResourceEventHandler<ResticVolumePopulator>> eventHandlers
-    ) {
-        SharedIndexInformer<ResticVolumePopulator> sharedIndexInformer =
-                factory.sharedIndexInformerFor(ResticVolumePopulator.class, NO_RESYNC);
-        eventHandlers.forEach(sharedIndexInformer::addEventHandler);
-        return sharedIndexInformer;
+    private static <T extends HasMetadata, L extends KubernetesResourceList<T>, R extends Resource<T>>
+    FilterWatchListDeletable<T, L, R> inNamespace(MixedOperation<T, L, R> operation, String namespace) {
+        return namespace == null ? operation.inAnyNamespace() : operation.inNamespace(namespace);
     }
 
     /// endregion
@@ -120,24 +166,8 @@ public class KubernetesConfiguration {
     /// region Event handlers
 
     @Bean
-    public ResourceEventHandler<Pod> podEventHandler(
-            ApplicationEventPublisher applicationEventPublisher
-    ) {
-        return new PublishResourceEventHandler<>(applicationEventPublisher);
-    }
-
-    @Bean
-    public ResourceEventHandler<PersistentVolumeClaim> pvcEventHandler(
-            ApplicationEventPublisher applicationEventPublisher
-    ) {
-        return new PublishResourceEventHandler<>(applicationEventPublisher);
-    }
-
-    @Bean
-    public ResourceEventHandler<ResticVolumePopulator> resticVolumePopulatorEventHandler(
-            ApplicationEventPublisher applicationEventPublisher
-    ) {
-        return new PublishResourceEventHandler<>(applicationEventPublisher);
+    public ResourceEventDispatcher resourceEventDispatcher() {
+        return new ResourceEventDispatcher();
     }
 
     /// endregion
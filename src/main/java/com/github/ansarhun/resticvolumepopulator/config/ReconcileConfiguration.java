@@ -1,8 +1,19 @@
 package com.github.ansarhun.resticvolumepopulator.config;
 
+import com.github.ansarhun.resticvolumepopulator.service.ReconcileQueue;
+import com.github.ansarhun.resticvolumepopulator.service.ReconcileRateLimiter;
+import com.github.ansarhun.resticvolumepopulator.service.ReconcileRequest;
+import com.github.ansarhun.resticvolumepopulator.service.ResourceCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -10,8 +21,83 @@ import java.util.concurrent.Executors;
 public class ReconcileConfiguration {
 
     @Bean
-    public ExecutorService reconcileTaskExecutor() {
-        return Executors.newSingleThreadExecutor();
+    public ExecutorService reconcileTaskExecutor(ApplicationProperties applicationProperties) {
+        return Executors.newFixedThreadPool(
+                applicationProperties.getReconcile().getWorkers(),
+                new CustomizableThreadFactory("reconcile-")
+        );
+    }
+
+    @Bean
+    public ReconcileQueue<ReconcileRequest> reconcileQueue(
+            ApplicationProperties applicationProperties,
+            ResourceCache resourceCache,
+            MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Reconcile reconcile = applicationProperties.getReconcile();
+        Timer waitTimer = Timer
+                .builder("reconcile.queue.wait")
+                .description("Time keys spent in the reconcile queue before a worker took them")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // taking a key must not look up the meter registry, a timer per namespace is opt-in
+        Map<String, Timer> namespaceWaitTimers = new ConcurrentHashMap<>();
+        ReconcileQueue<ReconcileRequest> reconcileQueue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(
+                        reconcile.getRetryBaseDelay(),
+                        reconcile.getRetryMaxDelay(),
+                        reconcile.getRetryQps(),
+                        reconcile.getRetryBurst()
+                ),
+                (request, wait) -> {
+                    waitTimer.record(wait);
+                    if (reconcile.isNamespaceWaitMetrics()) {
+                        namespaceWaitTimers
+                                .computeIfAbsent(request.id().namespace(), namespace -> Timer
+                                        .builder("reconcile.queue.namespace.wait")
+                                        .description("Time keys of a namespace spent in the reconcile queue before a worker took them")
+                                        .tag("namespace", namespace)
+                                        .register(meterRegistry))
+                                .record(wait);
+                    }
+                },
+                resourceCache::getPriority,
+                reconcile.getPriorityAging(),
+                request -> request.id().namespace(),
+                namespace -> reconcile.getNamespaceWeights().getOrDefault(namespace, 1),
+                resourceCache::getVolumePopulatorId
+        );
+
+        Gauge
+                .builder("reconcile.queue.depth", reconcileQueue, ReconcileQueue::size)
+                .description("Number of keys waiting in the reconcile queue")
+                .register(meterRegistry);
+        Gauge
+                .builder("reconcile.queue.processing", reconcileQueue, ReconcileQueue::processingSize)
+                .description("Number of keys being reconciled")
+                .register(meterRegistry);
+        FunctionCounter
+                .builder("reconcile.queue.added", reconcileQueue, ReconcileQueue::getAddedCount)
+                .description("Number of keys added to the reconcile queue")
+                .register(meterRegistry);
+        FunctionCounter
+                .builder("reconcile.queue.deduplicated", reconcileQueue, ReconcileQueue::getDeduplicatedCount)
+                .description("Number of added keys collapsed into an already pending key")
+                .register(meterRegistry);
+        Gauge
+                .builder("reconcile.queue.delayed", reconcileQueue, ReconcileQueue::delayedSize)
+                .description("Number of keys waiting for a delayed add")
+                .register(meterRegistry);
+        FunctionCounter
+                .builder("reconcile.queue.retries", reconcileQueue, ReconcileQueue::getRetryCount)
+                .description("Number of failed reconciles requeued with backoff")
+                .register(meterRegistry);
+        Gauge
+                .builder("reconcile.queue.backoff", reconcileQueue, ReconcileQueue::backoffSize)
+                .description("Number of keys whose last reconcile failed")
+                .register(meterRegistry);
+
+        return reconcileQueue;
     }
 
 }
@@ -0,0 +1,72 @@
+package com.github.ansarhun.resticvolumepopulator.event;
+
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/// Routes informer callbacks to the handlers registered for the resource class
+///
+/// The handler list of a class is resolved once when the informer is created, dispatching an event is a plain
+/// loop over that list.
+@Slf4j
+public class ResourceEventDispatcher {
+
+    private final Map<Class<?>, TypeDispatcher<?>> dispatchers = new ConcurrentHashMap<>();
+
+    public <T> void register(Class<T> resourceType, ResourceEventHandler<T> handler) {
+        dispatcher(resourceType).handlers.add(handler);
+    }
+
+    public <T> ResourceEventHandler<T> forType(Class<T> resourceType) {
+        return dispatcher(resourceType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TypeDispatcher<T> dispatcher(Class<T> resourceType) {
+        return (TypeDispatcher<T>) dispatchers.computeIfAbsent(resourceType, type -> new TypeDispatcher<>());
+    }
+
+    private static class TypeDispatcher<T> implements ResourceEventHandler<T> {
+        private final List<ResourceEventHandler<T>> handlers = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onAdd(T obj) {
+            log.trace("onAdd: {}", obj);
+            for (ResourceEventHandler<T> handler : handlers) {
+                try {
+                    handler.onAdd(obj);
+                } catch (Exception e) {
+                    log.warn("Event handler failed on add", e);
+                }
+            }
+        }
+
+        @Override
+        public void onUpdate(T oldObj, T newObj) {
+            log.trace("onUpdate: {} -> {}", oldObj, newObj);
+            for (ResourceEventHandler<T> handler : handlers) {
+                try {
+                    handler.onUpdate(oldObj, newObj);
+                } catch (Exception e) {
+                    log.warn("Event handler failed on update", e);
+                }
+            }
+        }
+
+        @Override
+        public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+            log.trace("onDelete: {}", obj);
+            for (ResourceEventHandler<T> handler : handlers) {
+                try {
+                    handler.onDelete(obj, deletedFinalStateUnknown);
+                } catch (Exception e) {
+                    log.warn("Event handler failed on delete", e);
+                }
+            }
+        }
+    }
+}
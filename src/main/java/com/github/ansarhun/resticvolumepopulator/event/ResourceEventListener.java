@@ -0,0 +1,37 @@
+package com.github.ansarhun.resticvolumepopulator.event;
+
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import lombok.Builder;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/// [ResourceEventHandler] built from method references, callbacks that are not set ignore the event
+@Builder
+public class ResourceEventListener<T> implements ResourceEventHandler<T> {
+
+    private final Consumer<T> onAdd;
+    private final BiConsumer<T, T> onUpdate;
+    private final Consumer<T> onDelete;
+
+    @Override
+    public void onAdd(T obj) {
+        if (onAdd != null) {
+            onAdd.accept(obj);
+        }
+    }
+
+    @Override
+    public void onUpdate(T oldObj, T newObj) {
+        if (onUpdate != null) {
+            onUpdate.accept(oldObj, newObj);
+        }
+    }
+
+    @Override
+    public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+        if (onDelete != null) {
+            onDelete.accept(obj);
+        }
+    }
+}
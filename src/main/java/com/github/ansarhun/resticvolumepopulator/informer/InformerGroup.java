@@ -0,0 +1,95 @@
+package com.github.ansarhun.resticvolumepopulator.informer;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/// Informers of one resource type, either a single cluster-wide informer or one informer per watched namespace
+///
+/// Reads are routed to the informer of the namespace, index lookups and listings are merged over all informers.
+public class InformerGroup<T extends HasMetadata> {
+
+    // key of the cluster-wide informer
+    private static final String ALL_NAMESPACES = "";
+
+    private final Map<String, SharedIndexInformer<T>> informers = new LinkedHashMap<>();
+
+    /// Creates the informers with `factory`, called with `null` for the cluster-wide informer when `namespaces` is
+    /// empty and once per namespace otherwise
+    public InformerGroup(Collection<String> namespaces, Function<String, SharedIndexInformer<T>> factory) {
+        if (namespaces.isEmpty()) {
+            informers.put(ALL_NAMESPACES, factory.apply(null));
+        } else {
+            namespaces.forEach(namespace -> informers.put(namespace, factory.apply(namespace)));
+        }
+    }
+
+    public boolean isNamespaced() {
+        return !informers.containsKey(ALL_NAMESPACES);
+    }
+
+    public void addIndexers(Map<String, Function<T, List<String>>> indexers) {
+        informers.values().forEach(informer -> informer.addIndexers(indexers));
+    }
+
+    public void addEventHandler(ResourceEventHandler<? super T> handler) {
+        informers.values().forEach(informer -> informer.addEventHandler(handler));
+    }
+
+    public CompletableFuture<Void> start() {
+        return CompletableFuture.allOf(
+                informers
+                        .values()
+                        .stream()
+                        .map(informer -> informer.start().toCompletableFuture())
+                        .toArray(CompletableFuture[]::new)
+        );
+    }
+
+    public void stop() {
+        informers.values().forEach(SharedIndexInformer::stop);
+    }
+
+    public boolean hasSynced() {
+        return informers.values().stream().allMatch(SharedIndexInformer::hasSynced);
+    }
+
+    /// Object from the store, `null` also for namespaces that are not watched
+    public T getByKey(String namespace, String name) {
+        SharedIndexInformer<T> informer = informers.get(isNamespaced() ? namespace : ALL_NAMESPACES);
+        if (informer == null) {
+            return null;
+        }
+
+        return informer.getStore().getByKey(Cache.namespaceKeyFunc(namespace, name));
+    }
+
+    public List<T> byIndex(String indexName, String indexedValue) {
+        if (informers.size() == 1) {
+            return informers.values().iterator().next().getIndexer().byIndex(indexName, indexedValue);
+        }
+
+        List<T> items = new ArrayList<>();
+        informers.values().forEach(informer -> items.addAll(informer.getIndexer().byIndex(indexName, indexedValue)));
+        return items;
+    }
+
+    public List<T> list() {
+        if (informers.size() == 1) {
+            return informers.values().iterator().next().getStore().list();
+        }
+
+        List<T> items = new ArrayList<>();
+        informers.values().forEach(informer -> items.addAll(informer.getStore().list()));
+        return items;
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.ansarhun.resticvolumepopulator.informer;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimSpec;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/// Keeps only the PVC fields read by the controller, drops managedFields, labels and the last applied
+/// configuration
+public class PersistentVolumeClaimTransform implements UnaryOperator<PersistentVolumeClaim> {
+
+    static final String LAST_APPLIED_ANNOTATION_KEY = "kubectl.kubernetes.io/last-applied-configuration";
+
+    @Override
+    public PersistentVolumeClaim apply(PersistentVolumeClaim pvc) {
+        ObjectMeta metadata = pvc.getMetadata();
+        PersistentVolumeClaimSpec spec = pvc.getSpec();
+
+        PersistentVolumeClaimBuilder builder = new PersistentVolumeClaimBuilder()
+                .withNewMetadata()
+                    .withName(metadata.getName())
+                    .withNamespace(metadata.getNamespace())
+                    .withUid(metadata.getUid())
+                    .withResourceVersion(metadata.getResourceVersion())
+                    .withCreationTimestamp(metadata.getCreationTimestamp())
+                    .withDeletionTimestamp(metadata.getDeletionTimestamp())
+                    .withAnnotations(trimAnnotations(metadata.getAnnotations()))
+                .endMetadata();
+
+        if (spec != null) {
+            builder = builder
+                    .withNewSpec()
+                        .withAccessModes(spec.getAccessModes())
+                        .withResources(spec.getResources())
+                        .withStorageClassName(spec.getStorageClassName())
+                        .withVolumeMode(spec.getVolumeMode())
+                        .withVolumeName(spec.getVolumeName())
+                        .withDataSourceRef(spec.getDataSourceRef())
+                    .endSpec();
+        }
+
+        if (pvc.getStatus() != null) {
+            builder = builder
+                    .withNewStatus()
+                        .withPhase(pvc.getStatus().getPhase())
+                    .endStatus();
+        }
+
+        return builder.build();
+    }
+
+    private static Map<String, String> trimAnnotations(Map<String, String> annotations) {
+        if (annotations == null || annotations.isEmpty()) {
+            return null;
+        }
+
+        if (!annotations.containsKey(LAST_APPLIED_ANNOTATION_KEY)) {
+            return annotations;
+        }
+
+        Map<String, String> trimmed = new HashMap<>(annotations);
+        trimmed.remove(LAST_APPLIED_ANNOTATION_KEY);
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
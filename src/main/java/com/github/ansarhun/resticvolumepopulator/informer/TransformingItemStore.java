@@ -0,0 +1,26 @@
+package com.github.ansarhun.resticvolumepopulator.informer;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.cache.BasicItemStore;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.util.function.UnaryOperator;
+
+/// Informer item store that transforms every object before it is cached
+///
+/// Indexers and event handlers still receive the object from the API server, only the stored copy (and the
+/// `oldObj` of later updates and resyncs) is the transformed one.
+public class TransformingItemStore<T extends HasMetadata> extends BasicItemStore<T> {
+
+    private final UnaryOperator<T> transform;
+
+    public TransformingItemStore(UnaryOperator<T> transform) {
+        super(Cache::metaNamespaceKeyFunc);
+        this.transform = transform;
+    }
+
+    @Override
+    public T put(String key, T obj) {
+        return super.put(key, transform.apply(obj));
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.ansarhun.resticvolumepopulator.k8s;
 
+import io.fabric8.generator.annotation.Max;
+import io.fabric8.generator.annotation.Min;
 import io.fabric8.generator.annotation.Required;
 import lombok.Data;
 
@@ -16,6 +18,14 @@ public class ResticVolumePopulatorSpec {
 
     private boolean allowUninitializedRepository = false;
 
+    /// Higher priorities are reconciled and get a prime pod slot first
+    @Min(-1000)
+    @Max(1000)
+    private int priority = 0;
+
+    /// Kubernetes `PriorityClass` of the prime pod
+    private String priorityClassName;
+
     private Image image = new Image();
 
     @Data
@@ -14,12 +14,39 @@ public class ResticVolumePopulatorStatus {
     @PrinterColumn
     private String boundPVC;
 
+    /// Position among the volume populators waiting for a prime pod slot, set while `QUEUED`
+    @PrinterColumn
+    private Integer queuePosition;
+
     private String primePod;
     private String primePvc;
 
+    @PrinterColumn
+    private Integer percentDone;
+
+    private Long bytesRestored;
+    private Long totalBytes;
+    private Long filesRestored;
+    private Long totalFiles;
+    private Long bytesPerSecond;
+
+    private Timestamps timestamps;
+
+    /// End of each restore phase, RFC 3339
+    @Data
+    public static class Timestamps {
+        private String initialized;
+        private String primeCreated;
+        private String primePodStarted;
+        private String primePodTerminated;
+        private String pvRebound;
+        private String cleanupFinished;
+    }
+
     public enum Status {
         UNINITIALIZED,
         BOUND,
+        QUEUED,
         PROVISIONING,
         CLEANUP,
         FINISHED
@@ -0,0 +1,190 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus.Status;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/// Caps the restores with a prime pod globally, per namespace and per restic repository secret. Volume
+/// populators over a cap wait in [Status#QUEUED] ordered by priority and the time they were initialized, where
+/// waiting for the aging period counts as one priority level. A waiting volume populator never takes a slot an
+/// earlier one could use.
+///
+/// Active restores are counted from the cache, admissions and releases not yet seen by the cache are tracked here.
+@RequiredArgsConstructor
+@Service
+public class AdmissionController {
+
+    private static final Set<Status> ACTIVE = EnumSet.of(Status.PROVISIONING, Status.CLEANUP);
+    private static final Set<Status> WAITING = EnumSet.of(Status.BOUND, Status.QUEUED);
+
+    // a status write that failed after the admission must not hold the slot forever
+    private static final Duration PENDING_TTL = Duration.ofMinutes(1);
+
+    private final ApplicationProperties applicationProperties;
+    private final ResourceCache resourceCache;
+
+    private final Map<ResourceId, Admitted> admitted = new HashMap<>();
+    private final Map<ResourceId, Instant> released = new HashMap<>();
+
+    public record Decision(boolean admitted, int queuePosition) {
+        static final Decision ADMITTED = new Decision(true, 0);
+    }
+
+    private record Admitted(ResticVolumePopulator volumePopulator, Instant since) {
+    }
+
+    /// Admits the volume populator or returns its 1-based position among the waiting ones
+    public Decision admit(ResticVolumePopulator volumePopulator) {
+        return admit(volumePopulator, resourceCache.listVolumePopulators());
+    }
+
+    synchronized Decision admit(ResticVolumePopulator volumePopulator, List<ResticVolumePopulator> volumePopulators) {
+        ApplicationProperties.Admission limits = applicationProperties.getAdmission();
+        if (limits.getMaxActive() <= 0 && limits.getMaxActivePerNamespace() <= 0 && limits.getMaxActivePerSecret() <= 0) {
+            return Decision.ADMITTED;
+        }
+
+        ResourceId id = new ResourceId(volumePopulator);
+        Instant now = Instant.now();
+        admitted.values().removeIf(entry -> entry.since().plus(PENDING_TTL).isBefore(now));
+        released.values().removeIf(since -> since.plus(PENDING_TTL).isBefore(now));
+
+        if (admitted.containsKey(id)) {
+            return Decision.ADMITTED;
+        }
+
+        Slots slots = new Slots(limits);
+        Map<ResourceId, ResticVolumePopulator> waiting = new HashMap<>();
+        for (ResticVolumePopulator cached : volumePopulators) {
+            ResourceId cachedId = new ResourceId(cached);
+            Status status = cached.getStatus() != null ? cached.getStatus().getStatus() : Status.UNINITIALIZED;
+
+            if (ACTIVE.contains(status)) {
+                admitted.remove(cachedId);
+                if (!released.containsKey(cachedId)) {
+                    slots.take(cached);
+                }
+            } else if (!admitted.containsKey(cachedId)) {
+                released.remove(cachedId);
+                if (WAITING.contains(status)) {
+                    waiting.put(cachedId, cached);
+                }
+            }
+        }
+        admitted.values().forEach(entry -> slots.take(entry.volumePopulator()));
+
+        // the cache may not have seen the volume populator leave UNINITIALIZED yet
+        waiting.put(id, volumePopulator);
+
+        int position = 0;
+        for (ResticVolumePopulator candidate : order(waiting, applicationProperties.getReconcile().getPriorityAging(), now)) {
+            position++;
+            boolean fits = slots.fits(candidate);
+
+            if (candidate == volumePopulator) {
+                if (!fits) {
+                    return new Decision(false, position);
+                }
+
+                admitted.put(id, new Admitted(volumePopulator, now));
+                return Decision.ADMITTED;
+            }
+
+            if (fits) {
+                // reserved for the earlier volume populator, it is admitted on its next pass
+                slots.take(candidate);
+            }
+        }
+
+        throw new IllegalStateException("Volume populator " + id + " missing from the waiting ones");
+    }
+
+    /// The restore of the volume populator finished or was abandoned, its slot is free before the cache sees it
+    public synchronized void release(ResticVolumePopulator volumePopulator) {
+        ResourceId id = new ResourceId(volumePopulator);
+        admitted.remove(id);
+        released.put(id, Instant.now());
+    }
+
+    static boolean isActive(Status status) {
+        return ACTIVE.contains(status);
+    }
+
+    private static List<ResticVolumePopulator> order(Map<ResourceId, ResticVolumePopulator> waiting, Duration aging, Instant now) {
+        Map<ResticVolumePopulator, Instant> ranks = new IdentityHashMap<>();
+        for (ResticVolumePopulator volumePopulator : waiting.values()) {
+            ranks.put(
+                    volumePopulator,
+                    waitingSince(volumePopulator, now).minus(aging.multipliedBy(volumePopulator.getSpec().getPriority()))
+            );
+        }
+
+        List<ResticVolumePopulator> ordered = new ArrayList<>(waiting.values());
+        ordered.sort(
+                Comparator
+                        .<ResticVolumePopulator, Instant>comparing(ranks::get)
+                        .thenComparing(volumePopulator -> new ResourceId(volumePopulator).toReference())
+        );
+        return ordered;
+    }
+
+    private static Instant waitingSince(ResticVolumePopulator volumePopulator, Instant now) {
+        if (volumePopulator.getStatus() == null || volumePopulator.getStatus().getTimestamps() == null) {
+            return now;
+        }
+
+        String initialized = volumePopulator.getStatus().getTimestamps().getInitialized();
+        if (initialized == null) {
+            return now;
+        }
+
+        try {
+            return Instant.parse(initialized);
+        } catch (DateTimeParseException e) {
+            return now;
+        }
+    }
+
+    private static class Slots {
+        private final ApplicationProperties.Admission limits;
+
+        private int active;
+        private final Map<String, Integer> activePerNamespace = new HashMap<>();
+        private final Map<String, Integer> activePerSecret = new HashMap<>();
+
+        Slots(ApplicationProperties.Admission limits) {
+            this.limits = limits;
+        }
+
+        boolean fits(ResticVolumePopulator volumePopulator) {
+            return below(limits.getMaxActive(), active) &&
+                    below(limits.getMaxActivePerNamespace(), activePerNamespace.getOrDefault(namespace(volumePopulator), 0)) &&
+                    below(limits.getMaxActivePerSecret(), activePerSecret.getOrDefault(secret(volumePopulator), 0));
+        }
+
+        void take(ResticVolumePopulator volumePopulator) {
+            active++;
+            activePerNamespace.merge(namespace(volumePopulator), 1, Integer::sum);
+            activePerSecret.merge(secret(volumePopulator), 1, Integer::sum);
+        }
+
+        private static boolean below(int limit, int count) {
+            return limit <= 0 || count < limit;
+        }
+
+        private static String namespace(ResticVolumePopulator volumePopulator) {
+            return volumePopulator.getMetadata().getNamespace();
+        }
+
+        private static String secret(ResticVolumePopulator volumePopulator) {
+            return namespace(volumePopulator) + "/" + volumePopulator.getSpec().getSecretName();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+/// Observes Kubernetes API calls as `kubernetes.api.requests`, a timer by verb, resource and outcome and a child
+/// span of the current reconcile. The outcome is the HTTP status code of failed calls.
+@RequiredArgsConstructor
+@Service
+public class ApiCallMetrics {
+
+    private final ObservationRegistry observationRegistry;
+
+    public <T> T call(String verb, String resource, Supplier<T> call) {
+        Observation observation = Observation
+                .createNotStarted("kubernetes.api.requests", observationRegistry)
+                .contextualName(verb + " " + resource)
+                .lowCardinalityKeyValue("verb", verb)
+                .lowCardinalityKeyValue("resource", resource)
+                .start();
+
+        String outcome = "success";
+        try (Observation.Scope scope = observation.openScope()) {
+            return call.get();
+        } catch (KubernetesClientException e) {
+            outcome = e.getCode() > 0 ? String.valueOf(e.getCode()) : "error";
+            observation.error(e);
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = "error";
+            observation.error(e);
+            throw e;
+        } finally {
+            observation
+                    .lowCardinalityKeyValue("outcome", outcome)
+                    .stop();
+        }
+    }
+
+    public void run(String verb, String resource, Runnable call) {
+        call(verb, resource, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Pod;
+
+import java.util.List;
+import java.util.Objects;
+
+/// Decide if an update changed anything the reconcile state machine acts on
+final class EventPredicates {
+
+    private EventPredicates() {
+    }
+
+    /// Phase, termination of the restic container or deletion of a prime pod
+    static boolean isRelevantPodUpdate(Pod oldPod, Pod newPod) {
+        if (oldPod == null) {
+            return true;
+        }
+
+        return !Objects.equals(getPhase(oldPod), getPhase(newPod)) ||
+                isTerminated(oldPod) != isTerminated(newPod) ||
+                isDeleted(oldPod) != isDeleted(newPod);
+    }
+
+    /// Phase, bound volume or deletion of a PVC, resyncs (same resource version) are always relevant
+    static boolean isRelevantPvcUpdate(PersistentVolumeClaim oldPvc, PersistentVolumeClaim newPvc) {
+        if (oldPvc == null || isResync(oldPvc, newPvc)) {
+            return true;
+        }
+
+        return !Objects.equals(getPhase(oldPvc), getPhase(newPvc)) ||
+                !Objects.equals(oldPvc.getSpec().getVolumeName(), newPvc.getSpec().getVolumeName()) ||
+                isDeleted(oldPvc) != isDeleted(newPvc);
+    }
+
+    /// Status of a volume populator, progress updates of a running restore are filtered
+    static boolean isRelevantVolumePopulatorUpdate(ResticVolumePopulator oldVolumePopulator, ResticVolumePopulator newVolumePopulator) {
+        if (oldVolumePopulator == null) {
+            return true;
+        }
+
+        return getStatus(oldVolumePopulator) != getStatus(newVolumePopulator);
+    }
+
+    private static boolean isResync(HasMetadata oldResource, HasMetadata newResource) {
+        return Objects.equals(
+                oldResource.getMetadata().getResourceVersion(),
+                newResource.getMetadata().getResourceVersion()
+        );
+    }
+
+    private static boolean isDeleted(HasMetadata resource) {
+        return resource.getMetadata().getDeletionTimestamp() != null;
+    }
+
+    private static ResticVolumePopulatorStatus.Status getStatus(ResticVolumePopulator volumePopulator) {
+        return volumePopulator.getStatus() == null ? null : volumePopulator.getStatus().getStatus();
+    }
+
+    private static String getPhase(Pod pod) {
+        return pod.getStatus() == null ? null : pod.getStatus().getPhase();
+    }
+
+    private static String getPhase(PersistentVolumeClaim pvc) {
+        return pvc.getStatus() == null ? null : pvc.getStatus().getPhase();
+    }
+
+    private static boolean isTerminated(Pod pod) {
+        if (pod.getStatus() == null) {
+            return false;
+        }
+
+        List<ContainerStatus> containerStatuses = pod.getStatus().getContainerStatuses();
+        return containerStatuses != null &&
+                !containerStatuses.isEmpty() &&
+                containerStatuses.getFirst().getState() != null &&
+                containerStatuses.getFirst().getState().getTerminated() != null;
+    }
+}
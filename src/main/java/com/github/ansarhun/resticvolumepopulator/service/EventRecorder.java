@@ -0,0 +1,392 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.MicroTime;
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import io.fabric8.kubernetes.api.model.ObjectReferenceBuilder;
+import io.fabric8.kubernetes.api.model.events.v1.EventBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/// Emits `events.k8s.io/v1` Events from a bounded background queue
+///
+/// Repeated events with the same object, reason and note are written as a `series` of the first event instead of
+/// new Events, like the event correlator of client-go. Events differing only in the note stay separate Events.
+/// Writes are limited per object and globally, events over the limit are dropped, or only counted in the series
+/// when they belong to one. Recording never blocks the caller, a full queue drops the event.
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class EventRecorder {
+
+    private static final String EVENT_TYPE = "Normal";
+    private static final String EVENT_ACTION = "provision";
+
+    // bounds the series and rate limiter state kept for objects that stopped emitting events
+    private static final int MAX_TRACKED_OBJECTS = 4096;
+
+    private static final DateTimeFormatter MICRO_TIME_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSXXX")
+            .withZone(ZoneOffset.UTC);
+
+    private final ApplicationProperties applicationProperties;
+    private final KubernetesClient kubernetesClient;
+    private final ApiCallMetrics apiCallMetrics;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    private final ExecutorService eventExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("event-recorder-"));
+
+    private BlockingQueue<PendingEvent> queue;
+
+    // only accessed by the event recorder thread
+    private SeriesTracker seriesTracker;
+    private final Map<String, TokenBucket> objectBuckets = lruMap();
+    private TokenBucket globalBucket;
+
+    private Counter droppedQueueFull;
+    private Counter droppedRateLimited;
+    private Counter coalesced;
+    private Counter emittedCreate;
+    private Counter emittedSeries;
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    private String reportingInstance;
+
+    @PostConstruct
+    public void start() {
+        ApplicationProperties.Events events = applicationProperties.getEvents();
+
+        queue = new ArrayBlockingQueue<>(events.getQueueCapacity());
+        globalBucket = new TokenBucket(events.getQps(), events.getBurst());
+        seriesTracker = new SeriesTracker(events.getSeriesWindow());
+
+        String hostname = System.getenv("HOSTNAME");
+        reportingInstance = hostname != null ? hostname : applicationName;
+
+        Gauge
+                .builder("events.queue.depth", queue, Collection::size)
+                .description("Number of events waiting to be written")
+                .register(meterRegistry);
+        droppedQueueFull = Counter
+                .builder("events.dropped")
+                .tag("reason", "queue_full")
+                .description("Number of events dropped without being written")
+                .register(meterRegistry);
+        droppedRateLimited = Counter
+                .builder("events.dropped")
+                .tag("reason", "rate_limited")
+                .description("Number of events dropped without being written")
+                .register(meterRegistry);
+        emittedCreate = Counter
+                .builder("events.emitted")
+                .tag("operation", "create")
+                .description("Number of event writes")
+                .register(meterRegistry);
+        emittedSeries = Counter
+                .builder("events.emitted")
+                .tag("operation", "series")
+                .description("Number of event writes")
+                .register(meterRegistry);
+        coalesced = Counter
+                .builder("events.coalesced")
+                .description("Number of events counted in the series of an earlier event instead of written on their own")
+                .register(meterRegistry);
+
+        eventExecutor.execute(this::processQueue);
+    }
+
+    @PreDestroy
+    public void stop() {
+        eventExecutor.shutdownNow();
+        if (!queue.isEmpty()) {
+            log.info("Discarding {} pending events", queue.size());
+        }
+    }
+
+    public void record(HasMetadata regarding, String reason, String note) {
+        PendingEvent event = new PendingEvent(
+                new ObjectReferenceBuilder()
+                        .withKind(regarding.getKind())
+                        .withNamespace(regarding.getMetadata().getNamespace())
+                        .withName(regarding.getMetadata().getName())
+                        .withUid(regarding.getMetadata().getUid())
+                        .build(),
+                reason,
+                note,
+                Instant.now(),
+                observationRegistry.getCurrentObservation()
+        );
+
+        if (!queue.offer(event)) {
+            droppedQueueFull.increment();
+            log.debug("Event queue full, dropping {} event of {}", reason, event.regarding().getName());
+        }
+    }
+
+    private void processQueue() {
+        int batchSize = applicationProperties.getEvents().getBatchSize();
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            queue.drainTo(batch, batchSize - 1);
+
+            Map<SeriesKey, List<PendingEvent>> grouped = group(batch);
+            batch.clear();
+
+            grouped.forEach((key, events) -> {
+                PendingEvent event = events.getLast();
+                Observation observation = Observation
+                        .createNotStarted("reconcile.event", observationRegistry)
+                        .parentObservation(event.parent())
+                        .contextualName("event " + event.reason())
+                        .lowCardinalityKeyValue("reason", event.reason())
+                        .highCardinalityKeyValue("occurrences", String.valueOf(events.size()))
+                        .start();
+                try (Observation.Scope scope = observation.openScope()) {
+                    emit(key, event, events.size());
+                } catch (Exception e) {
+                    observation.error(e);
+                    log.warn("Failed to submit event {}", e.getMessage());
+                } finally {
+                    observation.stop();
+                }
+            });
+        }
+    }
+
+    /// Identical events of a batch are written once with their number of occurrences, in the order of their first
+    /// occurrence
+    static Map<SeriesKey, List<PendingEvent>> group(List<PendingEvent> batch) {
+        Map<SeriesKey, List<PendingEvent>> grouped = new LinkedHashMap<>();
+        for (PendingEvent event : batch) {
+            grouped.computeIfAbsent(event.seriesKey(), k -> new ArrayList<>()).add(event);
+        }
+        return grouped;
+    }
+
+    private void emit(SeriesKey key, PendingEvent event, int occurrences) {
+        Series current = seriesTracker.observe(key, event.time(), occurrences);
+
+        if (!acquire(event.regarding())) {
+            if (current != null) {
+                // written with the next event of the series
+                coalesced.increment(occurrences);
+            } else {
+                droppedRateLimited.increment(occurrences);
+            }
+            return;
+        }
+
+        if (current != null) {
+            coalesced.increment(occurrences);
+            if (patchSeries(current)) {
+                return;
+            }
+            seriesTracker.remove(key);
+        }
+
+        String name = create(event);
+        seriesTracker.started(key, new Series(event.regarding().getNamespace(), name), event.time(), occurrences);
+
+        if (occurrences > 1) {
+            // written with the next event of the series
+            coalesced.increment(occurrences - 1);
+        }
+    }
+
+    private boolean acquire(ObjectReference regarding) {
+        ApplicationProperties.Events events = applicationProperties.getEvents();
+        TokenBucket objectBucket = objectBuckets.computeIfAbsent(
+                regarding.getUid() != null ? regarding.getUid() : regarding.getNamespace() + "/" + regarding.getName(),
+                k -> new TokenBucket(events.getPerObjectQps(), events.getPerObjectBurst())
+        );
+
+        return objectBucket.tryAcquire() && globalBucket.tryAcquire();
+    }
+
+    private String create(PendingEvent event) {
+        ObjectReference regarding = event.regarding();
+        // same naming as client-go, unique per object without a random suffix
+        String name = regarding.getName() + "." + Long.toHexString(
+                event.time().getEpochSecond() * 1_000_000_000L + event.time().getNano()
+        );
+
+        apiCallMetrics.run("create", "events", () ->
+                kubernetesClient
+                        .events()
+                        .v1()
+                        .events()
+                        .inNamespace(regarding.getNamespace())
+                        .resource(
+                                new EventBuilder()
+                                        .withNewMetadata()
+                                            .withNamespace(regarding.getNamespace())
+                                            .withName(name)
+                                        .endMetadata()
+                                        .withRegarding(regarding)
+                                        .withType(EVENT_TYPE)
+                                        .withReason(event.reason())
+                                        .withAction(EVENT_ACTION)
+                                        .withNote(event.note())
+                                        .withEventTime(microTime(event.time()))
+                                        .withReportingController(applicationName)
+                                        .withReportingInstance(reportingInstance)
+                                        .build()
+                        )
+                        .create()
+        );
+        emittedCreate.increment();
+
+        return name;
+    }
+
+    /// Returns `false` if the first event of the series no longer exists
+    private boolean patchSeries(Series current) {
+        Map<String, Object> patch = Map.of(
+                "series", Map.of(
+                        "count", current.count,
+                        "lastObservedTime", MICRO_TIME_FORMAT.format(current.lastObserved)
+                )
+        );
+
+        try {
+            apiCallMetrics.run("patch", "events", () ->
+                    kubernetesClient
+                            .events()
+                            .v1()
+                            .events()
+                            .inNamespace(current.namespace)
+                            .withName(current.name)
+                            .patch(
+                                    PatchContext.of(PatchType.JSON_MERGE),
+                                    kubernetesClient.getKubernetesSerialization().asJson(patch)
+                            )
+            );
+            emittedSeries.increment();
+            return true;
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static MicroTime microTime(Instant instant) {
+        return new MicroTime(MICRO_TIME_FORMAT.format(instant));
+    }
+
+    private static <K, V> Map<K, V> lruMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > MAX_TRACKED_OBJECTS;
+            }
+        };
+    }
+
+    /// `parent` is the observation that recorded the event, the `reconcile.event` observation around the write
+    /// becomes its child span
+    record PendingEvent(
+            ObjectReference regarding,
+            String reason,
+            String note,
+            Instant time,
+            Observation parent
+    ) {
+        SeriesKey seriesKey() {
+            return new SeriesKey(regarding.getNamespace(), regarding.getName(), regarding.getUid(), reason, note);
+        }
+    }
+
+    /// The note is part of the key, the steps of a restore share their reason but each one has to be kept
+    record SeriesKey(String namespace, String name, String uid, String reason, String note) {
+    }
+
+    /// The Event written for the first occurrence of a series
+    @Getter
+    @RequiredArgsConstructor
+    static class Series {
+        private final String namespace;
+        private final String name;
+
+        private int count;
+        private Instant lastObserved;
+    }
+
+    /// Series of the recently written events, a series ends once no occurrence was observed for the series window
+    static class SeriesTracker {
+        private final Duration window;
+        private final Map<SeriesKey, Series> series = lruMap();
+
+        SeriesTracker(Duration window) {
+            this.window = window;
+        }
+
+        /// Counts the occurrences in the ongoing series of the key, returns `null` if a new Event has to be written
+        Series observe(SeriesKey key, Instant time, int occurrences) {
+            Series current = series.get(key);
+            if (current == null) {
+                return null;
+            }
+
+            if (Duration.between(current.lastObserved, time).compareTo(window) > 0) {
+                series.remove(key);
+                return null;
+            }
+
+            current.count += occurrences;
+            current.lastObserved = time;
+            return current;
+        }
+
+        /// The Event of a new series was written
+        void started(SeriesKey key, Series started, Instant time, int occurrences) {
+            started.count = occurrences;
+            started.lastObserved = time;
+            series.put(key, started);
+        }
+
+        /// The Event of the series no longer exists
+        void remove(SeriesKey key) {
+            series.remove(key);
+        }
+    }
+}
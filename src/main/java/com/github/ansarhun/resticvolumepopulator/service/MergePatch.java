@@ -0,0 +1,47 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/// JSON merge patch ([RFC 7386](https://www.rfc-editor.org/rfc/rfc7386)) between two JSON objects given as maps
+final class MergePatch {
+
+    private MergePatch() {
+    }
+
+    /// Patch turning `original` into `modified`, empty when both are equal
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> diff(Map<String, Object> original, Map<String, Object> modified) {
+        Map<String, Object> patch = new LinkedHashMap<>();
+
+        Set<String> keys = new HashSet<>(original.keySet());
+        keys.addAll(modified.keySet());
+
+        for (String key : keys) {
+            Object originalValue = original.get(key);
+            Object modifiedValue = modified.get(key);
+
+            if (Objects.equals(originalValue, modifiedValue)) {
+                continue;
+            }
+
+            if (originalValue instanceof Map && modifiedValue instanceof Map) {
+                Map<String, Object> nested = diff(
+                        (Map<String, Object>) originalValue,
+                        (Map<String, Object>) modifiedValue
+                );
+                if (!nested.isEmpty()) {
+                    patch.put(key, nested);
+                }
+            } else {
+                // a null value removes the field
+                patch.put(key, modifiedValue);
+            }
+        }
+
+        return patch;
+    }
+}
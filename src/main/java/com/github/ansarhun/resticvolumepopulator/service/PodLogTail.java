@@ -0,0 +1,114 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Set;
+
+/// Bounded tail of a pod log
+///
+/// The log is read as a stream, only the last `maxLines` lines (each cut to `maxLineLength` characters) are
+/// kept, and the known [Signature]s are matched line by line while reading.
+class PodLogTail {
+
+    private static final String TRUNCATED_PREFIX = "...\n";
+
+    private final int maxLines;
+    private final int maxLineLength;
+
+    private final Deque<String> lines = new ArrayDeque<>();
+    private final Set<Signature> signatures = EnumSet.noneOf(Signature.class);
+
+    private long totalLines = 0;
+
+    PodLogTail(int maxLines, int maxLineLength) {
+        this.maxLines = maxLines;
+        this.maxLineLength = maxLineLength;
+    }
+
+    static PodLogTail read(Reader reader, int maxLines, int maxLineLength) throws IOException {
+        PodLogTail tail = new PodLogTail(maxLines, maxLineLength);
+
+        char[] buffer = new char[8192];
+        StringBuilder line = new StringBuilder();
+
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '\n' || c == '\r') {
+                    if (!line.isEmpty()) {
+                        tail.accept(line.toString());
+                        line.setLength(0);
+                    }
+                } else if (line.length() < maxLineLength) {
+                    line.append(c);
+                }
+            }
+        }
+
+        if (!line.isEmpty()) {
+            tail.accept(line.toString());
+        }
+
+        return tail;
+    }
+
+    void accept(String line) {
+        if (line.length() > maxLineLength) {
+            line = line.substring(0, maxLineLength);
+        }
+
+        for (Signature signature : Signature.values()) {
+            if (line.contains(signature.getText())) {
+                signatures.add(signature);
+            }
+        }
+
+        lines.addLast(line);
+        if (lines.size() > maxLines) {
+            lines.removeFirst();
+        }
+        totalLines++;
+    }
+
+    boolean contains(Signature signature) {
+        return signatures.contains(signature);
+    }
+
+    long getTotalLines() {
+        return totalLines;
+    }
+
+    /// The kept lines, cut from the start so the result is at most `maxLength` characters
+    String summary(int maxLength) {
+        String tail = String.join("\n", lines);
+        if (tail.length() <= maxLength && totalLines == lines.size()) {
+            return tail;
+        }
+
+        int keep = Math.max(0, maxLength - TRUNCATED_PREFIX.length());
+        return TRUNCATED_PREFIX + tail.substring(Math.max(0, tail.length() - keep));
+    }
+
+    @Override
+    public String toString() {
+        return String.join("\n", lines);
+    }
+
+    enum Signature {
+        UNINITIALIZED_REPOSITORY("Is there a repository at the following location?");
+
+        private final String text;
+
+        Signature(String text) {
+            this.text = text;
+        }
+
+        String getText() {
+            return text;
+        }
+    }
+}
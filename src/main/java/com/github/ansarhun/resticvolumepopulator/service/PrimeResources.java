@@ -0,0 +1,116 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import io.fabric8.kubernetes.api.model.*;
+
+import java.util.Map;
+
+import static com.github.ansarhun.resticvolumepopulator.service.ResourceIndexes.*;
+
+/// Prime PVC and pod built for every populated PVC
+final class PrimeResources {
+
+    private static final String POD_VOLUME_NAME = "source";
+    private static final String POD_MOUNT_PATH = "/mnt";
+    static final String CONTAINER_NAME = "restic";
+
+    // restic prints a --json status line every 5s when not attached to a terminal
+    private static final String RESTIC_PROGRESS_FPS = "0.2";
+
+    private PrimeResources() {
+    }
+
+    static String getPrimeName(PersistentVolumeClaim pvc) {
+        return "prime-" + pvc.getMetadata().getName();
+    }
+
+    static PersistentVolumeClaim createPrimePVC(PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator, String primeName) {
+        PersistentVolumeClaim primePvc = new PersistentVolumeClaimBuilder()
+                .withNewMetadata()
+                .withName(primeName)
+                .withNamespace(pvc.getMetadata().getNamespace())
+                .withLabels(Map.of(
+                        PRIME_LABEL_KEY, PRIME_LABEL_VALUE
+                ))
+                .withAnnotations(Map.of(
+                        OWNER_ANNOTATION_KEY, new ResourceId(pvc).toReference()
+                ))
+                .endMetadata()
+                .withNewSpec()
+                .withAccessModes(pvc.getSpec().getAccessModes())
+                .withResources(pvc.getSpec().getResources())
+                .withStorageClassName(pvc.getSpec().getStorageClassName())
+                .withVolumeMode(pvc.getSpec().getVolumeMode())
+                .endSpec()
+                .build();
+
+        return primePvc;
+    }
+
+    static Pod createPrimePod(PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator, String primeName) {
+        Pod primePod = new PodBuilder()
+                .withNewMetadata()
+                .withName(primeName)
+                .withNamespace(pvc.getMetadata().getNamespace())
+                .withLabels(Map.of(
+                        PRIME_LABEL_KEY, PRIME_LABEL_VALUE
+                ))
+                .withAnnotations(Map.of(
+                        OWNER_ANNOTATION_KEY, new ResourceId(pvc).toReference()
+                ))
+                .endMetadata()
+                .withNewSpec()
+                .withContainers(
+                        new ContainerBuilder()
+                                .withName(CONTAINER_NAME)
+                                .withImage(
+                                        volumePopulator.getSpec().getImage().getRepository() + ":" + volumePopulator.getSpec().getImage().getTag()
+                                )
+                                .withArgs(
+                                        "restore",
+                                        volumePopulator.getSpec().getSnapshot(),
+                                        "--target",
+                                        ".",
+                                        "--json"
+                                )
+                                .withWorkingDir(POD_MOUNT_PATH)
+                                .withEnv(
+                                        new EnvVarBuilder()
+                                                .withName("RESTIC_PROGRESS_FPS")
+                                                .withValue(RESTIC_PROGRESS_FPS)
+                                                .build()
+                                )
+                                .withEnvFrom(
+                                        new EnvFromSourceBuilder()
+                                                .withNewSecretRef()
+                                                .withName(volumePopulator.getSpec().getSecretName())
+                                                .endSecretRef()
+                                                .build()
+                                )
+                                .withVolumeMounts(
+                                        new VolumeMountBuilder()
+                                                .withName(POD_VOLUME_NAME)
+                                                .withMountPath(POD_MOUNT_PATH)
+                                                .build()
+                                )
+                                .build()
+                )
+                .withVolumes(
+                        new VolumeBuilder()
+                                .withName(POD_VOLUME_NAME)
+                                .withPersistentVolumeClaim(
+                                        new PersistentVolumeClaimVolumeSourceBuilder()
+                                                .withClaimName(primeName)
+                                                .build()
+                                )
+                                .build()
+                )
+                .withRestartPolicy("Never")
+                .withPriorityClassName(volumePopulator.getSpec().getPriorityClassName())
+                .withHostname(volumePopulator.getSpec().getHostname())
+                .endSpec()
+                .build();
+
+        return primePod;
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.micrometer.observation.Observation;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/// State of a single reconcile pass
+@Getter
+@RequiredArgsConstructor
+class ReconcileContext {
+
+    private final ReconcileRequest request;
+    private final ResourceCache resourceCache;
+
+    /// Bypass the informer caches, set when the previous pass failed on a stale read
+    private final boolean live;
+
+    /// Reconcile the key again after this delay, the shortest requested delay wins
+    private Duration requeueAfter;
+
+    /// Status of the volume populator when the pass started, `null` until it was read
+    @Setter
+    private ResticVolumePopulatorStatus.Status state;
+
+    /// Trace of the pass
+    @Setter
+    private Observation observation = Observation.NOOP;
+
+    /// Volume populator whose status is written once at the end of the pass
+    private ResticVolumePopulator statusTarget;
+
+    /// Status of the `statusTarget` when it was read, the written merge patch is the difference to it
+    private Map<String, Object> originalStatus;
+
+    /// Run once the status of the pass was written, e.g. metrics of the recorded status changes
+    private final List<Runnable> afterStatusWritten = new ArrayList<>();
+
+    void afterStatusWritten(Runnable action) {
+        afterStatusWritten.add(action);
+    }
+
+    /// Correlates the trace of the pass with the volume populator, the same populator is reached from PVC and
+    /// volume populator requests
+    void observeVolumePopulator(ResticVolumePopulator volumePopulator) {
+        observation.highCardinalityKeyValue("populator.uid", String.valueOf(volumePopulator.getMetadata().getUid()));
+        observation.highCardinalityKeyValue("populator", new ResourceId(volumePopulator).toReference());
+    }
+
+    void trackStatus(ResticVolumePopulator volumePopulator, Map<String, Object> originalStatus) {
+        this.statusTarget = volumePopulator;
+        this.originalStatus = originalStatus;
+    }
+
+    void requeueAfter(Duration delay) {
+        if (requeueAfter == null || delay.compareTo(requeueAfter) < 0) {
+            requeueAfter = delay;
+        }
+    }
+
+    ResourceId getId() {
+        return request.id();
+    }
+
+    PersistentVolumeClaim getPvc(ResourceId id) {
+        return resourceCache.getPvc(id, live);
+    }
+
+    Pod getPod(ResourceId id) {
+        return resourceCache.getPod(id, live);
+    }
+
+    ResticVolumePopulator getVolumePopulator(ResourceId id) {
+        return resourceCache.getVolumePopulator(id, live);
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/// State transitions, restore outcomes and restore phase durations, reconcile durations are recorded by the
+/// `reconcile.duration` observation
+@RequiredArgsConstructor
+@Service
+public class ReconcileMetrics {
+
+    // prime pods of failed restores stay until the user intervenes and are seen on every resync
+    private static final int MAX_REMEMBERED_RESTORES = 4096;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Set<String> finishedRestores = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_REMEMBERED_RESTORES;
+                }
+            }
+    ));
+
+    void stateTransition(ResticVolumePopulatorStatus.Status from, ResticVolumePopulatorStatus.Status to) {
+        Counter
+                .builder("reconcile.state.transitions")
+                .description("Status changes of volume populators")
+                .tags("from", from.name(), "to", to.name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /// Counts the restore of a prime pod once, later passes over the same pod are ignored
+    void restoreFinished(Pod primePod, boolean succeeded) {
+        if (!finishedRestores.add(primePod.getMetadata().getUid())) {
+            return;
+        }
+
+        Counter
+                .builder("restores")
+                .description("Finished restic restores of prime pods")
+                .tag("outcome", succeeded ? "succeeded" : "failed")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    void phaseCompleted(String phase, Duration duration) {
+        Timer
+                .builder("restore.phase.duration")
+                .description("Duration of a restore phase, from the end of the previous phase")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(duration);
+    }
+}
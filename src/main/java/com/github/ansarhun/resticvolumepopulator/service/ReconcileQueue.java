@@ -0,0 +1,371 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/// Controller style work queue
+///
+/// - a key that is already waiting in the queue is not added again
+/// - a key is never handed out to two workers at the same time, if it is added while being processed
+///   it is queued again once the worker calls [#done(Object)]
+/// - keys of the same lane, e.g. the requests of one restore, are not handed out at the same time either. A key
+///   taken while its lane is busy waits aside until the key holding the lane is done.
+/// - delayed adds of the same key keep only the earliest deadline
+/// - keys are handed out by priority, a key that waited for the aging period counts as one priority level
+///   higher so low priority keys are not starved. Keys of the same priority are handed out in FIFO order.
+/// - keys are grouped into flows, e.g. by namespace, that share the workers by weight (start-time fair queuing).
+///   Priorities apply across flows: the next key comes from the flows whose first key has the highest aged
+///   priority level, the fair share only decides between those. A flow with a large backlog only delays other
+///   flows of the same priority by its share.
+public class ReconcileQueue<K> {
+
+    private final ReconcileRateLimiter<K> rateLimiter;
+    private final BiConsumer<K, Duration> waitObserver;
+    private final ToIntFunction<K> priority;
+    private final long agingNanos;
+    private final Function<K, String> flow;
+    private final ToIntFunction<String> weight;
+    private final Function<K, ?> lane;
+
+    private final Map<String, Flow<K>> flows = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int size;
+    private final Set<K> dirty = new HashSet<>();
+    private final Set<K> processing = new HashSet<>();
+    private final Map<K, Object> lanes = new HashMap<>();
+    private final Map<Object, List<K>> parked = new HashMap<>();
+    private int parkedSize;
+    private final Map<K, Long> queuedAt = new HashMap<>();
+    private final Map<K, Duration> waits = new HashMap<>();
+
+    private final Map<K, Delayed> delayed = new HashMap<>();
+    private final ScheduledExecutorService delayExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reconcile-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    private boolean shuttingDown = false;
+
+    public ReconcileQueue() {
+        this(new ReconcileRateLimiter<>(Duration.ofMillis(500), Duration.ofMinutes(5), 10, 100));
+    }
+
+    public ReconcileQueue(ReconcileRateLimiter<K> rateLimiter) {
+        this(rateLimiter, wait -> {});
+    }
+
+    /// `waitObserver` receives the time every key spent in the queue before a worker took it
+    public ReconcileQueue(ReconcileRateLimiter<K> rateLimiter, Consumer<Duration> waitObserver) {
+        this(rateLimiter, waitObserver, key -> 0, Duration.ofSeconds(30));
+    }
+
+    /// `priority` is read once whenever the key is queued, higher values are taken first
+    public ReconcileQueue(ReconcileRateLimiter<K> rateLimiter, Consumer<Duration> waitObserver, ToIntFunction<K> priority, Duration aging) {
+        this(rateLimiter, (key, wait) -> waitObserver.accept(wait), priority, aging, key -> "", name -> 1);
+    }
+
+    /// `flow` names the flow of a key, `weight` is its share of the workers relative to other flows with queued
+    /// keys. The weight of a flow is read when it becomes active.
+    public ReconcileQueue(
+            ReconcileRateLimiter<K> rateLimiter,
+            BiConsumer<K, Duration> waitObserver,
+            ToIntFunction<K> priority,
+            Duration aging,
+            Function<K, String> flow,
+            ToIntFunction<String> weight
+    ) {
+        this(rateLimiter, waitObserver, priority, aging, flow, weight, key -> null);
+    }
+
+    /// `lane` is read whenever the key is taken, `null` puts the key in no lane
+    public ReconcileQueue(
+            ReconcileRateLimiter<K> rateLimiter,
+            BiConsumer<K, Duration> waitObserver,
+            ToIntFunction<K> priority,
+            Duration aging,
+            Function<K, String> flow,
+            ToIntFunction<String> weight,
+            Function<K, ?> lane
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.waitObserver = waitObserver;
+        this.priority = priority;
+        this.agingNanos = aging.toNanos();
+        this.flow = flow;
+        this.weight = weight;
+        this.lane = lane;
+    }
+
+    public synchronized void add(K key) {
+        if (shuttingDown) {
+            return;
+        }
+
+        added.incrementAndGet();
+
+        if (!dirty.add(key)) {
+            deduplicated.incrementAndGet();
+            return;
+        }
+
+        if (processing.contains(key)) {
+            return;
+        }
+
+        enqueue(key);
+    }
+
+    public synchronized void addAfter(K key, Duration delay) {
+        if (shuttingDown) {
+            return;
+        }
+
+        if (delay.isZero() || delay.isNegative()) {
+            add(key);
+            return;
+        }
+
+        long deadline = System.nanoTime() + delay.toNanos();
+
+        Delayed existing = delayed.get(key);
+        if (existing != null) {
+            if (existing.deadline() - deadline <= 0) {
+                return;
+            }
+            existing.future().cancel(false);
+        }
+
+        ScheduledFuture<?> future = delayExecutor.schedule(
+                () -> addDelayed(key, deadline),
+                delay.toNanos(),
+                TimeUnit.NANOSECONDS
+        );
+        delayed.put(key, new Delayed(deadline, future));
+    }
+
+    /// Adds the key after the backoff of the rate limiter, call [#forget(Object)] once the key succeeds
+    public void addRateLimited(K key) {
+        retries.incrementAndGet();
+        addAfter(key, rateLimiter.when(key));
+    }
+
+    public void forget(K key) {
+        rateLimiter.forget(key);
+    }
+
+    public int getRetries(K key) {
+        return rateLimiter.getFailures(key);
+    }
+
+    /// Blocks until a key is available, returns `null` after [#shutdown()]
+    public synchronized K take() throws InterruptedException {
+        K key;
+        while (true) {
+            while (size == 0 && !shuttingDown) {
+                wait();
+            }
+
+            if (shuttingDown) {
+                return null;
+            }
+
+            key = dequeue();
+            Object keyLane = lane.apply(key);
+            if (keyLane == null) {
+                break;
+            }
+            if (!lanes.containsValue(keyLane)) {
+                lanes.put(key, keyLane);
+                break;
+            }
+
+            // stays dirty, adds while parked are collapsed into it
+            parked.computeIfAbsent(keyLane, ignored -> new ArrayList<>()).add(key);
+            parkedSize++;
+        }
+
+        dirty.remove(key);
+        processing.add(key);
+
+        Long queued = queuedAt.remove(key);
+        if (queued != null) {
+            Duration wait = Duration.ofNanos(System.nanoTime() - queued);
+            waits.put(key, wait);
+            waitObserver.accept(key, wait);
+        }
+        return key;
+    }
+
+    /// Time the key waited in the queue before it was taken, until [#done(Object)]
+    public synchronized Duration getWait(K key) {
+        return waits.getOrDefault(key, Duration.ZERO);
+    }
+
+    public synchronized void done(K key) {
+        processing.remove(key);
+        waits.remove(key);
+
+        List<K> unparked = parked.remove(lanes.remove(key));
+        if (unparked != null) {
+            parkedSize -= unparked.size();
+            if (!shuttingDown) {
+                unparked.forEach(this::enqueue);
+            }
+        }
+
+        if (dirty.contains(key) && !shuttingDown) {
+            enqueue(key);
+        }
+    }
+
+    public synchronized void shutdown() {
+        shuttingDown = true;
+        delayExecutor.shutdownNow();
+        delayed.clear();
+        queuedAt.clear();
+        waits.clear();
+        parked.clear();
+        parkedSize = 0;
+        notifyAll();
+    }
+
+    /// Keys waiting in the queue, including keys waiting for their lane
+    public synchronized int size() {
+        return size + parkedSize;
+    }
+
+    public synchronized int processingSize() {
+        return processing.size();
+    }
+
+    public synchronized int delayedSize() {
+        return delayed.size();
+    }
+
+    public int backoffSize() {
+        return rateLimiter.size();
+    }
+
+    public long getAddedCount() {
+        return added.get();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    private void enqueue(K key) {
+        // a key queued again after waiting for its lane keeps its time in the queue
+        long queued = queuedAt.computeIfAbsent(key, ignored -> System.nanoTime());
+        Flow<K> keyFlow = flows.computeIfAbsent(flow.apply(key), Flow::new);
+        keyFlow.getEntries().add(new Entry<>(key, queued - priority.applyAsInt(key) * agingNanos, sequence++));
+        if (keyFlow.getEntries().size() == 1) {
+            keyFlow.setStart(virtualTime);
+            keyFlow.setWeight(Math.max(weight.applyAsInt(keyFlow.getName()), 1));
+            keyFlow.setSequence(sequence++);
+        }
+        size++;
+
+        notify();
+    }
+
+    private K dequeue() {
+        long now = System.nanoTime();
+        Flow<K> nextFlow = null;
+        long nextLevel = 0;
+        for (Flow<K> candidate : flows.values()) {
+            long level = level(candidate.getEntries().element(), now);
+            if (nextFlow == null || level > nextLevel || level == nextLevel && before(candidate, nextFlow)) {
+                nextFlow = candidate;
+                nextLevel = level;
+            }
+        }
+
+        K key = nextFlow.getEntries().remove().key();
+        size--;
+
+        // a flow passed over for higher priority keys continues at the virtual time instead of taking turns in a row
+        virtualTime = Math.max(nextFlow.getStart(), virtualTime);
+
+        if (nextFlow.getEntries().isEmpty()) {
+            // an idle flow starts again at the virtual time, it does not save up credit
+            flows.remove(nextFlow.getName());
+        } else {
+            nextFlow.setStart(virtualTime + 1.0 / nextFlow.getWeight());
+            nextFlow.setSequence(sequence++);
+        }
+
+        return key;
+    }
+
+    /// Priority of the entry plus one level for every aging period it waited
+    private long level(Entry<K> entry, long now) {
+        return agingNanos > 0 ? Math.floorDiv(now - entry.rank(), agingNanos) : 0;
+    }
+
+    private boolean before(Flow<K> flow, Flow<K> other) {
+        double start = Math.max(flow.getStart(), virtualTime);
+        double otherStart = Math.max(other.getStart(), virtualTime);
+        return start < otherStart || start == otherStart && flow.getSequence() < other.getSequence();
+    }
+
+    private synchronized void addDelayed(K key, long deadline) {
+        Delayed current = delayed.get(key);
+        if (current != null && current.deadline() == deadline) {
+            delayed.remove(key);
+        }
+
+        add(key);
+    }
+
+    private record Entry<K>(K key, long rank, long sequence) {
+    }
+
+    /// `start` is the virtual time of the next key of the flow, every taken key advances it by `1 / weight`
+    @Getter
+    @Setter
+    @RequiredArgsConstructor
+    private static class Flow<K> {
+        private final String name;
+        private final PriorityQueue<Entry<K>> entries = new PriorityQueue<>(
+                Comparator.<Entry<K>>comparingLong(Entry::rank).thenComparingLong(Entry::sequence)
+        );
+
+        private int weight = 1;
+        private double start;
+        private long sequence;
+    }
+
+    private record Delayed(long deadline, ScheduledFuture<?> future) {
+    }
+}
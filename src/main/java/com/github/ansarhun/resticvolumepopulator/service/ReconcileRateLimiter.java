@@ -0,0 +1,57 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/// Delay for retrying a failed key
+///
+/// The larger of a per-key exponential backoff and a global token bucket, so a single failing key backs off on
+/// its own and many failing keys together cannot retry faster than `qps`.
+public class ReconcileRateLimiter<K> {
+
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+
+    private final TokenBucket bucket;
+
+    private final Map<K, Integer> failures = new HashMap<>();
+
+    public ReconcileRateLimiter(Duration baseDelay, Duration maxDelay, double qps, int burst) {
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.bucket = new TokenBucket(qps, burst);
+    }
+
+    public synchronized Duration when(K key) {
+        int keyFailures = failures.merge(key, 1, Integer::sum);
+
+        Duration backoff = backoff(keyFailures);
+        Duration reserved = bucket.reserve();
+
+        return backoff.compareTo(reserved) >= 0 ? backoff : reserved;
+    }
+
+    public synchronized void forget(K key) {
+        failures.remove(key);
+    }
+
+    public synchronized int getFailures(K key) {
+        return failures.getOrDefault(key, 0);
+    }
+
+    /// Number of keys that failed and have not succeeded since
+    public synchronized int size() {
+        return failures.size();
+    }
+
+    private Duration backoff(int keyFailures) {
+        int exponent = keyFailures - 1;
+        if (exponent >= 31) {
+            return maxDelay;
+        }
+
+        Duration backoff = baseDelay.multipliedBy(1L << exponent);
+        return backoff.compareTo(maxDelay) > 0 ? maxDelay : backoff;
+    }
+}
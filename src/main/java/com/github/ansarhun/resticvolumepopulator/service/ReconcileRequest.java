@@ -0,0 +1,45 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+
+import java.util.List;
+
+/// Key of a queued reconcile, a PVC and a volume populator with the same name are different keys
+public record ReconcileRequest(Type type, ResourceId id) {
+
+    public static ReconcileRequest pvc(ResourceId id) {
+        return new ReconcileRequest(Type.PVC, id);
+    }
+
+    public static ReconcileRequest volumePopulator(ResourceId id) {
+        return new ReconcileRequest(Type.VOLUME_POPULATOR, id);
+    }
+
+    /// Requests that pick up a volume populator without a preceding event, e.g. after its namespace moved to this
+    /// replica. A restore past [ResticVolumePopulatorStatus.Status#UNINITIALIZED] only progresses through its bound PVC.
+    public static List<ReconcileRequest> resume(ResticVolumePopulator volumePopulator) {
+        ReconcileRequest volumePopulatorRequest = volumePopulator(new ResourceId(volumePopulator));
+
+        ResticVolumePopulatorStatus status = volumePopulator.getStatus();
+        if (
+                status == null ||
+                        status.getStatus() == ResticVolumePopulatorStatus.Status.UNINITIALIZED ||
+                        status.getBoundPVC() == null
+        ) {
+            return List.of(volumePopulatorRequest);
+        }
+
+        return List.of(volumePopulatorRequest, pvc(ResourceId.fromReference(status.getBoundPVC())));
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + id;
+    }
+
+    public enum Type {
+        PVC,
+        VOLUME_POPULATOR
+    }
+}
@@ -1,172 +1,423 @@
 package com.github.ansarhun.resticvolumepopulator.service;
 
-import com.github.ansarhun.resticvolumepopulator.event.ResourceAdded;
-import com.github.ansarhun.resticvolumepopulator.event.ResourceRemoved;
-import com.github.ansarhun.resticvolumepopulator.event.ResourceUpdated;
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import com.github.ansarhun.resticvolumepopulator.event.ResourceEventDispatcher;
+import com.github.ansarhun.resticvolumepopulator.event.ResourceEventListener;
 import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
 import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
 import io.fabric8.kubernetes.api.model.*;
-import io.fabric8.kubernetes.api.model.events.v1.EventBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.base.PatchContext;
 import io.fabric8.kubernetes.client.dsl.base.PatchType;
-import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextStoppedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.github.ansarhun.resticvolumepopulator.service.ResourceIndexes.*;
 
 @RequiredArgsConstructor
 @Slf4j
 @Service
 public class ReconcileService {
 
-    private static final String POD_VOLUME_NAME = "source";
-    private static final String POD_MOUNT_PATH = "/mnt";
-    private static final String CONTAINER_NAME = "restic";
-
-    private final static String RESTC_VOLUME_POPULATOR_API_GROUP = new ResticVolumePopulator().getGroup();
-    private final static String RESTC_VOLUME_POPULATOR_KIND = new ResticVolumePopulator().getKind();
+    // events.k8s.io/v1 rejects notes longer than 1kB
+    private static final int EVENT_NOTE_MAX_LENGTH = 1024;
 
-    private final static String OWNER_ANNOTATION_KEY = RESTC_VOLUME_POPULATOR_KIND.toLowerCase() + "." + RESTC_VOLUME_POPULATOR_API_GROUP + "/owner";
+    private final ApplicationProperties applicationProperties;
 
     private final ExecutorService reconcileTaskExecutor;
+    private final ReconcileQueue<ReconcileRequest> reconcileQueue;
+    private final ResourceEventDispatcher resourceEventDispatcher;
 
     private final KubernetesClient kubernetesClient;
-    private final SharedIndexInformer<PersistentVolumeClaim> pvcInformer;
+    private final ApiCallMetrics apiCallMetrics;
+    private final ReconcileMetrics reconcileMetrics;
+    private final ResourceCache resourceCache;
+    private final RestoreProgressTracker restoreProgressTracker;
+    private final EventRecorder eventRecorder;
+    private final ShardMembership shardMembership;
+    private final AdmissionController admissionController;
+
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
 
-    @Value("${spring.application.name}")
-    private String applicationName;
+    private final Set<ReconcileRequest> staleRequests = ConcurrentHashMap.newKeySet();
 
-    private final CountDownLatch waitForStart = new CountDownLatch(1);
+    private final AtomicBoolean workersStarted = new AtomicBoolean();
+    private final AtomicBoolean workersDrained = new AtomicBoolean();
+
+    private Counter filteredPvcEvents;
+    private Counter filteredPodEvents;
+    private Counter filteredVolumePopulatorEvents;
 
     @EventListener(ApplicationReadyEvent.class)
     @Order
     public void applicationStarted() {
-        log.info("Starting worker thread");
-        waitForStart.countDown();
+        if (applicationProperties.getLeaderElection().isEnabled() && !shardMembership.isEnabled()) {
+            log.info("Waiting for leadership to start reconcile workers");
+            return;
+        }
+
+        startWorkers();
+    }
+
+    public void startWorkers() {
+        if (!workersStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        int workers = applicationProperties.getReconcile().getWorkers();
+
+        log.info("Starting {} reconcile workers", workers);
+        for (int i = 0; i < workers; i++) {
+            reconcileTaskExecutor.execute(this::processQueue);
+        }
+    }
+
+    /// Stops taking keys from the queue and waits for the running reconciles to finish
+    @EventListener({ContextStoppedEvent.class, ContextClosedEvent.class})
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void drainWorkers() {
+        if (!workersDrained.compareAndSet(false, true)) {
+            return;
+        }
+
+        reconcileQueue.shutdown();
+        reconcileTaskExecutor.shutdown();
+
+        Duration drainTimeout = applicationProperties.getReconcile().getDrainTimeout();
+        try {
+            if (reconcileTaskExecutor.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.info("Reconcile workers drained");
+            } else {
+                log.warn("Reconcile workers not drained within {}", drainTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /// region Event listeners
 
-    @EventListener
-    public void pvcAdded(ResourceAdded<PersistentVolumeClaim> event) {
-        PersistentVolumeClaim persistentVolumeClaim = event.getResource();
+    /// Reconciles every volume populator of the namespaces this replica owns now together with the PVC a started
+    /// restore is bound to, restores handed over mid-flight continue without waiting for the next event
+    @EventListener(ShardMembership.ShardsChangedEvent.class)
+    public void shardsChanged() {
+        for (ResticVolumePopulator volumePopulator : resourceCache.listVolumePopulators()) {
+            ReconcileRequest.resume(volumePopulator).forEach(this::enqueue);
+        }
+    }
 
+    @PostConstruct
+    public void registerEventListeners() {
+        filteredPvcEvents = meterRegistry.counter("reconcile.events.filtered", "resource", "pvc");
+        filteredPodEvents = meterRegistry.counter("reconcile.events.filtered", "resource", "pod");
+        filteredVolumePopulatorEvents = meterRegistry.counter("reconcile.events.filtered", "resource", "resticvolumepopulator");
+
+        resourceEventDispatcher.register(
+                PersistentVolumeClaim.class,
+                ResourceEventListener.<PersistentVolumeClaim>builder()
+                        .onAdd(this::pvcAdded)
+                        .onUpdate(this::pvcUpdated)
+                        .onDelete(this::pvcRemoved)
+                        .build()
+        );
+        resourceEventDispatcher.register(
+                Pod.class,
+                ResourceEventListener.<Pod>builder()
+                        .onAdd(this::podAdded)
+                        .onUpdate(this::podUpdated)
+                        .onDelete(this::podRemoved)
+                        .build()
+        );
+        resourceEventDispatcher.register(
+                ResticVolumePopulator.class,
+                ResourceEventListener.<ResticVolumePopulator>builder()
+                        .onAdd(this::resticVolumePopulatorAdded)
+                        .onUpdate(this::resticVolumePopulatorUpdated)
+                        .build()
+        );
+    }
+
+    private void pvcAdded(PersistentVolumeClaim persistentVolumeClaim) {
         if (!isPvcWithResticVolumePopulator(persistentVolumeClaim)) {
             return;
         }
 
         ResourceId pvcKey = new ResourceId(persistentVolumeClaim);
-        submit(() -> reconcilePVC(pvcKey));
+        enqueue(ReconcileRequest.pvc(pvcKey));
     }
 
-    @EventListener
-    public void pvcUpdated(ResourceUpdated<PersistentVolumeClaim> event) {
-        PersistentVolumeClaim pvc = event.getNewResource();
+    private void pvcUpdated(PersistentVolumeClaim oldPvc, PersistentVolumeClaim pvc) {
+        if (!EventPredicates.isRelevantPvcUpdate(oldPvc, pvc)) {
+            filteredPvcEvents.increment();
+            return;
+        }
 
-        String owner = pvc.getMetadata().getAnnotations().get(OWNER_ANNOTATION_KEY);
-        if (StringUtils.hasText(owner)) {
+        String owner = getOwnerReference(pvc);
+        if (owner != null) {
             ResourceId ownerId = ResourceId.fromReference(owner);
-            submit(() -> reconcilePVC(ownerId));
+            enqueue(ReconcileRequest.pvc(ownerId));
             return;
         }
 
         // For periodic reconcile
         if (isPvcWithResticVolumePopulator(pvc)) {
             ResourceId ownerId = new ResourceId(pvc);
-            submit(() -> reconcilePVC(ownerId));
+            enqueue(ReconcileRequest.pvc(ownerId));
             return;
         }
     }
 
-    @EventListener
-    public void resticVolumePopulatorAdded(ResourceAdded<ResticVolumePopulator> event) {
-        ResticVolumePopulator volumePopulator = event.getResource();
-
+    private void resticVolumePopulatorAdded(ResticVolumePopulator volumePopulator) {
         ResourceId key = new ResourceId(volumePopulator);
-        submit(() -> reconcileVolumePopulator(key));
+        enqueue(ReconcileRequest.volumePopulator(key));
     }
 
-    @EventListener
-    public void podAdded(ResourceAdded<Pod> event) {
-        Pod pod = event.getResource();
+    /// A written status change continues the restore through its PVC once the cache holds the new status
+    private void resticVolumePopulatorUpdated(ResticVolumePopulator oldVolumePopulator, ResticVolumePopulator volumePopulator) {
+        if (!EventPredicates.isRelevantVolumePopulatorUpdate(oldVolumePopulator, volumePopulator)) {
+            filteredVolumePopulatorEvents.increment();
+            return;
+        }
 
-        String owner = pod.getMetadata().getAnnotations().get(OWNER_ANNOTATION_KEY);
-        if (!StringUtils.hasText(owner)) {
+        if (volumePopulator.getStatus() == null || volumePopulator.getStatus().getBoundPVC() == null) {
             return;
         }
 
-        ResourceId ownerId = ResourceId.fromReference(owner);
-        submit(() -> reconcilePVC(ownerId));
+        enqueue(ReconcileRequest.pvc(ResourceId.fromReference(volumePopulator.getStatus().getBoundPVC())));
     }
 
-    @EventListener
-    public void pvcRemoved(ResourceRemoved<PersistentVolumeClaim> event) {
-        PersistentVolumeClaim persistentVolumeClaim = event.getResource();
+    private void podAdded(Pod pod) {
+        String owner = getOwnerReference(pod);
+        if (owner == null) {
+            return;
+        }
+
+        ResourceId ownerId = ResourceId.fromReference(owner);
+        enqueue(ReconcileRequest.pvc(ownerId));
+    }
 
+    private void pvcRemoved(PersistentVolumeClaim persistentVolumeClaim) {
         if (!isPvcWithResticVolumePopulator(persistentVolumeClaim)) {
             return;
         }
 
         ResourceId volumePopulatorKey = getVolumePopulatorKey(persistentVolumeClaim);
-        submit(() -> reconcileVolumePopulator(volumePopulatorKey));
+        enqueue(ReconcileRequest.volumePopulator(volumePopulatorKey));
     }
 
-    @EventListener
-    public void podUpdated(ResourceUpdated<Pod> event) {
-        Pod pod = event.getNewResource();
+    private void podUpdated(Pod oldPod, Pod pod) {
+        if (!EventPredicates.isRelevantPodUpdate(oldPod, pod)) {
+            filteredPodEvents.increment();
+            return;
+        }
 
-        String owner = pod.getMetadata().getAnnotations().get(OWNER_ANNOTATION_KEY);
-        if (!StringUtils.hasText(owner)) {
+        String owner = getOwnerReference(pod);
+        if (owner == null) {
             return;
         }
 
         ResourceId ownerId = ResourceId.fromReference(owner);
-        submit(() -> reconcilePVC(ownerId));
+        enqueue(ReconcileRequest.pvc(ownerId));
+    }
+
+    private void podRemoved(Pod pod) {
+        String owner = getOwnerReference(pod);
+        if (owner == null) {
+            return;
+        }
+
+        ResourceId ownerId = ResourceId.fromReference(owner);
+        enqueue(ReconcileRequest.pvc(ownerId));
     }
 
     /// endregion
 
     // region Reconcile
 
-    private void reconcilePVC(ResourceId pvcKey) {
-        PersistentVolumeClaim pvc = kubernetesClient
-                .persistentVolumeClaims()
-                .inNamespace(pvcKey.namespace)
-                .withName(pvcKey.name)
-                .get();
+    private void processQueue() {
+        while (true) {
+            ReconcileRequest request;
+            try {
+                request = reconcileQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (request == null) {
+                log.info("Reconcile queue shut down, stopping worker thread");
+                return;
+            }
+
+            if (!shardMembership.owns(request.id().namespace())) {
+                // the namespace moved to another replica while the request was queued
+                reconcileQueue.forget(request);
+                reconcileQueue.done(request);
+                continue;
+            }
+
+            ReconcileContext context = new ReconcileContext(
+                    request,
+                    resourceCache,
+                    staleRequests.remove(request)
+            );
+
+            Observation observation = Observation
+                    .createNotStarted("reconcile.duration", observationRegistry)
+                    .contextualName("reconcile " + request.type().name().toLowerCase())
+                    .lowCardinalityKeyValue("type", request.type().name().toLowerCase())
+                    .highCardinalityKeyValue("namespace", request.id().namespace())
+                    .highCardinalityKeyValue("name", request.id().name())
+                    .highCardinalityKeyValue("queue.wait", String.valueOf(reconcileQueue.getWait(request).toMillis()))
+                    .start();
+            context.setObservation(observation);
+
+            Observation.Scope scope = observation.openScope();
+            String outcome = "success";
+            try {
+                reconcile(context);
+                writeStatus(context);
+                context.getAfterStatusWritten().forEach(Runnable::run);
+                reconcileQueue.forget(request);
+
+                if (context.getRequeueAfter() != null) {
+                    reconcileQueue.addAfter(request, context.getRequeueAfter());
+                }
+            } catch (KubernetesClientException e) {
+                if (e.getCode() == HttpURLConnection.HTTP_CONFLICT) {
+                    log.debug("Conflict during reconcile of {}, retrying with live reads", request);
+                    staleRequests.add(request);
+                    outcome = "conflict";
+                } else {
+                    log.warn("Reconcile failed for {} (retry {})", request, reconcileQueue.getRetries(request), e);
+                    outcome = "error";
+                    observation.error(e);
+                }
+                reconcileQueue.addRateLimited(request);
+            } catch (Exception e) {
+                log.warn("Reconcile failed for {} (retry {})", request, reconcileQueue.getRetries(request), e);
+                reconcileQueue.addRateLimited(request);
+                outcome = "error";
+                observation.error(e);
+            } finally {
+                scope.close();
+                observation
+                        .lowCardinalityKeyValue("state", context.getState() != null ? context.getState().name() : "NONE")
+                        .lowCardinalityKeyValue("outcome", outcome)
+                        .stop();
+                reconcileQueue.done(request);
+            }
+        }
+    }
+
+    private void reconcile(ReconcileContext context) {
+        switch (context.getRequest().type()) {
+            case PVC -> reconcilePVC(context);
+            case VOLUME_POPULATOR -> reconcileVolumePopulator(context);
+        }
+    }
+
+    private void trackStatus(ReconcileContext context, ResticVolumePopulator volumePopulator) {
+        context.trackStatus(volumePopulator, statusAsMap(volumePopulator.getStatus()));
+    }
+
+    /// Writes the status changes of the pass as a single merge patch, conflicts if the volume populator changed
+    /// since it was read
+    private void writeStatus(ReconcileContext context) {
+        ResticVolumePopulator volumePopulator = context.getStatusTarget();
+        if (volumePopulator == null) {
+            return;
+        }
+
+        Map<String, Object> statusPatch = MergePatch.diff(
+                context.getOriginalStatus(),
+                statusAsMap(volumePopulator.getStatus())
+        );
+        if (statusPatch.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> patch = Map.of(
+                "metadata", Map.of("resourceVersion", volumePopulator.getMetadata().getResourceVersion()),
+                "status", statusPatch
+        );
+
+        ResticVolumePopulator written = apiCallMetrics.call("patch", "resticvolumepopulators/status", () ->
+                kubernetesClient
+                        .resources(ResticVolumePopulator.class)
+                        .inNamespace(volumePopulator.getMetadata().getNamespace())
+                        .withName(volumePopulator.getMetadata().getName())
+                        .subresource("status")
+                        .patch(
+                                PatchContext.of(PatchType.JSON_MERGE),
+                                kubernetesClient.getKubernetesSerialization().asJson(patch)
+                        )
+        );
+
+        // the next pass reads this status even if the informer has not delivered it yet
+        resourceCache.volumePopulatorWritten(volumePopulator.getMetadata().getResourceVersion(), written);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> statusAsMap(ResticVolumePopulatorStatus status) {
+        if (status == null) {
+            return Map.of();
+        }
+
+        return kubernetesClient.getKubernetesSerialization().convertValue(status, Map.class);
+    }
+
+    private void reconcilePVC(ReconcileContext context) {
+        ResourceId pvcKey = context.getId();
+        PersistentVolumeClaim pvc = context.getPvc(pvcKey);
 
         if (pvc == null) {
             return;
         }
 
-        ResticVolumePopulator volumePopulator = kubernetesClient
-                .resources(ResticVolumePopulator.class)
-                .inNamespace(pvc.getMetadata().getNamespace())
-                .withName(pvc.getSpec().getDataSourceRef().getName())
-                .get();
+        ResticVolumePopulator volumePopulator = context.getVolumePopulator(
+                new ResourceId(pvc.getMetadata().getNamespace(), pvc.getSpec().getDataSourceRef().getName())
+        );
 
         if (volumePopulator == null) {
-            // wait for volume populator
+            // the volume populator reconcile enqueues the PVC once it is created
             log.debug("Volume populator not found for pvc {}", pvcKey);
             return;
         }
 
+        trackStatus(context, volumePopulator);
         if (volumePopulator.getStatus() == null) {
             volumePopulator.setStatus(new ResticVolumePopulatorStatus());
         }
 
         ResticVolumePopulatorStatus.Status status = volumePopulator.getStatus().getStatus();
+        context.setState(status);
+        context.observeVolumePopulator(volumePopulator);
         if (status != ResticVolumePopulatorStatus.Status.FINISHED) {
             log.info("Reconciling pvc {} with status {}", pvcKey, status);
         } else {
@@ -174,14 +425,26 @@ public class ReconcileService {
         }
 
         switch (status) {
-            case UNINITIALIZED -> actionInitialize(pvcKey, pvc, volumePopulator);
-            case BOUND -> actionProvision(pvcKey, pvc, volumePopulator);
-            case PROVISIONING -> actionRebind(pvcKey, pvc, volumePopulator);
-            case CLEANUP -> actionCleanup(pvcKey, pvc, volumePopulator);
+            case UNINITIALIZED -> actionInitialize(context, pvc, volumePopulator);
+            case BOUND, QUEUED -> actionProvision(context, pvc, volumePopulator);
+            case PROVISIONING -> actionRebind(context, pvc, volumePopulator);
+            case CLEANUP -> actionCleanup(context, pvc, volumePopulator);
             case FINISHED -> {}
         }
 
+        if (AdmissionController.isActive(status) && !AdmissionController.isActive(volumePopulator.getStatus().getStatus())) {
+            releaseSlot(context, volumePopulator);
+        }
+
+        if (
+                status == ResticVolumePopulatorStatus.Status.PROVISIONING &&
+                        volumePopulator.getStatus().getStatus() != ResticVolumePopulatorStatus.Status.PROVISIONING
+        ) {
+            restoreProgressTracker.cancel(new ResourceId(volumePopulator));
+        }
+
         if (status != volumePopulator.getStatus().getStatus()) {
+            reconcileMetrics.stateTransition(status, volumePopulator.getStatus().getStatus());
             sendEvent(
                     volumePopulator,
                     "StateChange",
@@ -189,30 +452,44 @@ public class ReconcileService {
             );
             log.info("Reconcile status changed for pvc {} {}->{}", pvcKey, status, volumePopulator.getStatus().getStatus());
         }
+
+        Duration resyncPeriod = applicationProperties
+                .getReconcile()
+                .getResyncPeriods()
+                .get(volumePopulator.getStatus().getStatus());
+        if (resyncPeriod != null) {
+            context.requeueAfter(resyncPeriod);
+        }
     }
 
-    private void reconcileVolumePopulator(ResourceId volumePopulatorKey) {
-        ResticVolumePopulator volumePopulator = kubernetesClient
-                .resources(ResticVolumePopulator.class)
-                .inNamespace(volumePopulatorKey.namespace)
-                .withName(volumePopulatorKey.name)
-                .get();
+    private void reconcileVolumePopulator(ReconcileContext context) {
+        ResourceId volumePopulatorKey = context.getId();
+        ResticVolumePopulator volumePopulator = context.getVolumePopulator(volumePopulatorKey);
 
         if (volumePopulator == null) {
             log.info("Volume populator not found {}", volumePopulatorKey);
             return;
         }
 
+        context.setState(
+                volumePopulator.getStatus() != null
+                        ? volumePopulator.getStatus().getStatus()
+                        : ResticVolumePopulatorStatus.Status.UNINITIALIZED
+        );
+        context.observeVolumePopulator(volumePopulator);
+
         if (
                 volumePopulator.getStatus() != null &&
                         volumePopulator.getStatus().getStatus() != ResticVolumePopulatorStatus.Status.UNINITIALIZED
         ) {
+            trackStatus(context, volumePopulator);
+
             ResourceId pvcId = ResourceId.fromReference(volumePopulator.getStatus().getBoundPVC());
-            PersistentVolumeClaim persistentVolumeClaim = kubernetesClient
-                    .persistentVolumeClaims()
-                    .inNamespace(pvcId.namespace)
-                    .withName(pvcId.name)
-                    .get();
+            PersistentVolumeClaim persistentVolumeClaim = context.getPvc(pvcId);
+            if (persistentVolumeClaim == null && !context.isLive()) {
+                // confirm before resetting the status, the cache may not have seen the PVC yet
+                persistentVolumeClaim = resourceCache.getPvc(pvcId, true);
+            }
             if (persistentVolumeClaim != null) {
                 return;
             }
@@ -221,11 +498,12 @@ public class ReconcileService {
             log.info("PVC {} was removed for volume populator {} in {}", pvcId, volumePopulatorKey, status);
             log.debug("Previous status for volume populator {}: {}", volumePopulatorKey, volumePopulator.getStatus());
 
+            restoreProgressTracker.cancel(volumePopulatorKey);
+            if (AdmissionController.isActive(status)) {
+                releaseSlot(context, volumePopulator);
+            }
+
             volumePopulator.setStatus(new ResticVolumePopulatorStatus());
-            kubernetesClient
-                    .resource(volumePopulator)
-                    .inNamespace(volumePopulator.getMetadata().getNamespace())
-                    .updateStatus();
 
             sendEvent(
                     volumePopulator,
@@ -236,60 +514,67 @@ public class ReconcileService {
             return;
         }
 
-        Optional<PersistentVolumeClaim> foundPVC = pvcInformer
-                .getStore()
-                .list()
-                .stream()
-                .filter(this::isPvcWithResticVolumePopulator)
-                .filter(pvc -> getVolumePopulatorKey(pvc).equals(volumePopulatorKey))
-                .findAny();
+        List<PersistentVolumeClaim> foundPVCs = resourceCache.findPvcs(
+                ResourceIndexes.PVC_BY_VOLUME_POPULATOR,
+                volumePopulatorKey.toReference()
+        );
 
-        if (foundPVC.isEmpty()) {
+        if (foundPVCs.isEmpty()) {
             return;
         }
 
-        ResourceId pvcKey = new ResourceId(foundPVC.get());
-        submit(() -> reconcilePVC(pvcKey));
+        ResourceId pvcKey = new ResourceId(foundPVCs.getFirst());
+        enqueue(ReconcileRequest.pvc(pvcKey));
     }
 
     /// endregion
 
     /// region Reconcile actions
 
-    private void actionInitialize(ResourceId pvcKey, PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator) {
+    private void actionInitialize(ReconcileContext context, PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator) {
+        ResourceId pvcKey = context.getId();
+
         volumePopulator.getStatus().setBoundPVC(pvcKey.toReference());
 
+        ResticVolumePopulatorStatus.Timestamps timestamps = timestamps(volumePopulator);
+        timestamps.setInitialized(Instant.now().toString());
+        phaseCompleted(context, "initialize", pvc.getMetadata().getCreationTimestamp(), timestamps.getInitialized());
+
         if ("Bound".equals(pvc.getStatus().getPhase())) {
             volumePopulator.getStatus().setStatus(ResticVolumePopulatorStatus.Status.FINISHED);
 
             sendEvent(
                     volumePopulator,
                     "Provision",
-                    "PVC already provisioned " + pvcKey.name
+                    "PVC already provisioned " + pvcKey.name()
             );
         } else {
             volumePopulator.getStatus().setStatus(ResticVolumePopulatorStatus.Status.BOUND);
         }
-
-        kubernetesClient
-                .resource(volumePopulator)
-                .inNamespace(volumePopulator.getMetadata().getNamespace())
-                .updateStatus();
-
-        submit(() -> reconcilePVC(pvcKey));
     }
 
-    private void actionProvision(ResourceId pvcKey, PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator) {
-        String primeName = getPrimeName(pvc);
+    private void actionProvision(ReconcileContext context, PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator) {
+        AdmissionController.Decision decision = admissionController.admit(volumePopulator);
+        if (!decision.admitted()) {
+            log.debug("Volume populator {} queued at position {}", new ResourceId(volumePopulator), decision.queuePosition());
+            volumePopulator.getStatus().setStatus(ResticVolumePopulatorStatus.Status.QUEUED);
+            volumePopulator.getStatus().setQueuePosition(decision.queuePosition());
+            return;
+        }
+        volumePopulator.getStatus().setQueuePosition(null);
 
-        PersistentVolumeClaim primePvc = createPrimePVC(pvc, volumePopulator, primeName);
-        Pod primePod = createPrimePod(pvc, volumePopulator, primeName);
+        String primeName = PrimeResources.getPrimeName(pvc);
 
-        kubernetesClient
-                .persistentVolumeClaims()
-                .inNamespace(primePvc.getMetadata().getNamespace())
-                .resource(primePvc)
-                .serverSideApply();
+        PersistentVolumeClaim primePvc = PrimeResources.createPrimePVC(pvc, volumePopulator, primeName);
+        Pod primePod = PrimeResources.createPrimePod(pvc, volumePopulator, primeName);
+
+        apiCallMetrics.run("apply", "persistentvolumeclaims", () ->
+                kubernetesClient
+                        .persistentVolumeClaims()
+                        .inNamespace(primePvc.getMetadata().getNamespace())
+                        .resource(primePvc)
+                        .serverSideApply()
+        );
 
         sendEvent(
                 volumePopulator,
@@ -297,11 +582,13 @@ public class ReconcileService {
                 "Prime PVC created " + primePvc.getMetadata().getName()
         );
 
-        kubernetesClient
-                .pods()
-                .inNamespace(primePod.getMetadata().getNamespace())
-                .resource(primePod)
-                .serverSideApply();
+        apiCallMetrics.run("apply", "pods", () ->
+                kubernetesClient
+                        .pods()
+                        .inNamespace(primePod.getMetadata().getNamespace())
+                        .resource(primePod)
+                        .serverSideApply()
+        );
 
         sendEvent(
                 volumePopulator,
@@ -313,50 +600,63 @@ public class ReconcileService {
         volumePopulator.getStatus().setPrimePod(new ResourceId(primePod).toReference());
         volumePopulator.getStatus().setPrimePvc(new ResourceId(primePvc).toReference());
 
-        kubernetesClient
-                .resource(volumePopulator)
-                .inNamespace(volumePopulator.getMetadata().getNamespace())
-                .updateStatus();
+        ResticVolumePopulatorStatus.Timestamps timestamps = timestamps(volumePopulator);
+        timestamps.setPrimeCreated(Instant.now().toString());
+        phaseCompleted(context, "provision", timestamps.getInitialized(), timestamps.getPrimeCreated());
     }
 
-    private void actionRebind(ResourceId pvcKey, PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator) {
+    private void actionRebind(ReconcileContext context, PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator) {
         ResourceId primePodId = ResourceId.fromReference(volumePopulator.getStatus().getPrimePod());
-        Pod primePod = kubernetesClient
-                .pods()
-                .inNamespace(primePodId.namespace)
-                .withName(primePodId.name)
-                .get();
+        Pod primePod = context.getPod(primePodId);
 
         ResourceId primePvcId = ResourceId.fromReference(volumePopulator.getStatus().getPrimePvc());
-        PersistentVolumeClaim primePvc = kubernetesClient
-                .persistentVolumeClaims()
-                .inNamespace(primePvcId.namespace)
-                .withName(primePvcId.name)
-                .get();
+        PersistentVolumeClaim primePvc = context.getPvc(primePvcId);
 
         if (primePod == null || primePvc == null) {
+            context.requeueAfter(applicationProperties.getReconcile().getWaitInterval());
             return;
         }
 
+        ResticVolumePopulatorStatus.Timestamps timestamps = timestamps(volumePopulator);
+
         if (
                 primePod.getStatus().getContainerStatuses().isEmpty() ||
                 primePod.getStatus().getContainerStatuses().getFirst().getState().getTerminated() == null
         ) {
+            if ("Running".equals(primePod.getStatus().getPhase())) {
+                ContainerStateRunning running = primePod.getStatus().getContainerStatuses().isEmpty()
+                        ? null
+                        : primePod.getStatus().getContainerStatuses().getFirst().getState().getRunning();
+                if (running != null && timestamps.getPrimePodStarted() == null) {
+                    timestamps.setPrimePodStarted(running.getStartedAt());
+                    phaseCompleted(context, "schedule", timestamps.getPrimeCreated(), timestamps.getPrimePodStarted());
+                }
+
+                restoreProgressTracker.follow(new ResourceId(volumePopulator), primePod);
+            }
             return;
         }
 
-        String primePodLog = kubernetesClient
-                .pods()
-                .inNamespace(primePod.getMetadata().getNamespace())
-                .resource(primePod)
-                .getLog();
+        PodLogTail primePodLog = readPrimePodLog(primePod);
 
         ContainerStateTerminated terminated = primePod.getStatus().getContainerStatuses().getFirst().getState().getTerminated();
 
+        if (timestamps.getPrimePodTerminated() == null) {
+            // the pod may finish between two passes without being seen running
+            if (timestamps.getPrimePodStarted() == null) {
+                timestamps.setPrimePodStarted(terminated.getStartedAt());
+                phaseCompleted(context, "schedule", timestamps.getPrimeCreated(), timestamps.getPrimePodStarted());
+            }
+
+            timestamps.setPrimePodTerminated(terminated.getFinishedAt());
+            phaseCompleted(context, "restore", timestamps.getPrimePodStarted(), timestamps.getPrimePodTerminated());
+        }
+
+        String eventHeader = "Prime Pod finished (" + terminated.getExitCode() + ")\n";
         sendEvent(
                 volumePopulator,
                 "Provision",
-                "Prime Pod finished (" + terminated.getExitCode() + ")\n" + primePodLog
+                eventHeader + primePodLog.summary(EVENT_NOTE_MAX_LENGTH - eventHeader.length())
         );
         log.debug("Prime pod finished {}", primePodLog);
 
@@ -364,8 +664,9 @@ public class ReconcileService {
             case "Error" -> {
                 if (
                         !volumePopulator.getSpec().isAllowUninitializedRepository() ||
-                        !primePodLog.contains("Is there a repository at the following location?")
+                        !primePodLog.contains(PodLogTail.Signature.UNINITIALIZED_REPOSITORY)
                 ) {
+                    reconcileMetrics.restoreFinished(primePod, false);
                     return;
                 }
 
@@ -374,16 +675,27 @@ public class ReconcileService {
             case "Completed" -> {}
 
             case null, default -> {
+                reconcileMetrics.restoreFinished(primePod, false);
                 return;
             }
         }
 
-        PersistentVolume persistentVolume = kubernetesClient
-                .persistentVolumes()
-                .withName(primePvc.getSpec().getVolumeName())
-                .get();
+        reconcileMetrics.restoreFinished(primePod, true);
+
+        if (primePvc.getSpec().getVolumeName() == null) {
+            context.requeueAfter(applicationProperties.getReconcile().getWaitInterval());
+            return;
+        }
+
+        PersistentVolume persistentVolume = apiCallMetrics.call("get", "persistentvolumes", () ->
+                kubernetesClient
+                        .persistentVolumes()
+                        .withName(primePvc.getSpec().getVolumeName())
+                        .get()
+        );
 
         if (persistentVolume == null) {
+            context.requeueAfter(applicationProperties.getReconcile().getWaitInterval());
             return;
         }
 
@@ -409,10 +721,12 @@ public class ReconcileService {
                     .endSpec()
                     .build();
 
-            kubernetesClient
-                    .persistentVolumes()
-                    .resource(persistentVolume)
-                    .patch(PatchContext.of(PatchType.STRATEGIC_MERGE), patch);
+            apiCallMetrics.run("patch", "persistentvolumes", () ->
+                    kubernetesClient
+                            .persistentVolumes()
+                            .resource(persistentVolume)
+                            .patch(PatchContext.of(PatchType.STRATEGIC_MERGE), patch)
+            );
 
             sendEvent(
                     volumePopulator,
@@ -421,39 +735,32 @@ public class ReconcileService {
             );
         }
 
-        volumePopulator.getStatus().setStatus(ResticVolumePopulatorStatus.Status.CLEANUP);
+        timestamps.setPvRebound(Instant.now().toString());
+        phaseCompleted(context, "rebind", timestamps.getPrimePodTerminated(), timestamps.getPvRebound());
 
-        kubernetesClient
-                .resource(volumePopulator)
-                .inNamespace(volumePopulator.getMetadata().getNamespace())
-                .updateStatus();
+        volumePopulator.getStatus().setStatus(ResticVolumePopulatorStatus.Status.CLEANUP);
     }
 
-    private void actionCleanup(ResourceId pvcKey, PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator) {
+    private void actionCleanup(ReconcileContext context, PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator) {
         ResourceId primePodId = ResourceId.fromReference(volumePopulator.getStatus().getPrimePod());
-        Pod primePod = kubernetesClient
-                .pods()
-                .inNamespace(primePodId.namespace)
-                .withName(primePodId.name)
-                .get();
+        Pod primePod = context.getPod(primePodId);
 
         ResourceId primePvcId = ResourceId.fromReference(volumePopulator.getStatus().getPrimePvc());
-        PersistentVolumeClaim primePvc = kubernetesClient
-                .persistentVolumeClaims()
-                .inNamespace(primePvcId.namespace)
-                .withName(primePvcId.name)
-                .get();
+        PersistentVolumeClaim primePvc = context.getPvc(primePvcId);
 
         if (primePvc != null && !"Lost".equals(primePvc.getStatus().getPhase())) {
+            context.requeueAfter(applicationProperties.getReconcile().getWaitInterval());
             return;
         }
 
         if (primePod != null) {
-            kubernetesClient
-                    .pods()
-                    .inNamespace(primePod.getMetadata().getNamespace())
-                    .resource(primePod)
-                    .delete();
+            apiCallMetrics.run("delete", "pods", () ->
+                    kubernetesClient
+                            .pods()
+                            .inNamespace(primePod.getMetadata().getNamespace())
+                            .resource(primePod)
+                            .delete()
+            );
 
             sendEvent(
                     volumePopulator,
@@ -463,11 +770,13 @@ public class ReconcileService {
         }
 
         if (primePvc != null) {
-            kubernetesClient
-                    .persistentVolumeClaims()
-                    .inNamespace(primePvc.getMetadata().getNamespace())
-                    .resource(primePvc)
-                    .delete();
+            apiCallMetrics.run("delete", "persistentvolumeclaims", () ->
+                    kubernetesClient
+                            .persistentVolumeClaims()
+                            .inNamespace(primePvc.getMetadata().getNamespace())
+                            .resource(primePvc)
+                            .delete()
+            );
 
             sendEvent(
                     volumePopulator,
@@ -480,186 +789,84 @@ public class ReconcileService {
         volumePopulator.getStatus().setPrimePod(null);
         volumePopulator.getStatus().setPrimePvc(null);
 
-        kubernetesClient
-                .resource(volumePopulator)
-                .inNamespace(volumePopulator.getMetadata().getNamespace())
-                .updateStatus();
+        ResticVolumePopulatorStatus.Timestamps timestamps = timestamps(volumePopulator);
+        timestamps.setCleanupFinished(Instant.now().toString());
+        phaseCompleted(context, "cleanup", timestamps.getPvRebound(), timestamps.getCleanupFinished());
+        phaseCompleted(context, "total", pvc.getMetadata().getCreationTimestamp(), timestamps.getCleanupFinished());
     }
 
     /// endregion
 
     /// region Helpers
 
-    private void submit(Runnable runnable) {
-        reconcileTaskExecutor.execute(() -> reconcile(runnable));
-    }
-
-    private void reconcile(Runnable runnable) {
-        try {
-            waitForStart.await();
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+    private PodLogTail readPrimePodLog(Pod primePod) {
+        ApplicationProperties.PrimePodLog properties = applicationProperties.getPrimePodLog();
 
-        runnable.run();
-    }
-
-    private void sendEvent(ResticVolumePopulator volumePopulator, String reason, String note) {
-        String hostname = System.getenv("HOSTNAME");
-        if (hostname == null) {
-            hostname = applicationName;
-        }
+        try (
+                Reader reader = apiCallMetrics.call("get", "pods/log", () ->
+                        kubernetesClient
+                                .pods()
+                                .inNamespace(primePod.getMetadata().getNamespace())
+                                .resource(primePod)
+                                .getLogReader()
+                )
+        ) {
+            return PodLogTail.read(reader, properties.getTailLines(), properties.getMaxLineLength());
+        } catch (IOException | KubernetesClientException e) {
+            log.warn("Failed to read log of prime pod {}: {}", new ResourceId(primePod), e.getMessage());
 
-        try {
-            kubernetesClient
-                    .events()
-                    .v1()
-                    .events()
-                    .inNamespace(volumePopulator.getMetadata().getNamespace())
-                    .resource(
-                            new EventBuilder()
-                                    .withNewMetadata()
-                                        .withNamespace(volumePopulator.getMetadata().getNamespace())
-                                        .withName(volumePopulator.getMetadata().getName() + "." + UUID.randomUUID())
-                                    .endMetadata()
-                                    .withNewRegarding()
-                                        .withKind(volumePopulator.getKind())
-                                        .withNamespace(volumePopulator.getMetadata().getNamespace())
-                                        .withName(volumePopulator.getMetadata().getName())
-                                        .withUid(volumePopulator.getMetadata().getUid())
-                                    .endRegarding()
-                                    .withType("Normal")
-                                    .withReason(reason)
-                                    .withAction("provision")
-                                    .withNote(note)
-                                    .withEventTime(new MicroTime(Instant.now().toString()))
-                                    .withReportingController(applicationName)
-                                    .withReportingInstance(hostname)
-                                    .build()
-                    )
-                    .create();
-        } catch (Exception e) {
-            log.warn("Failed to submit event {}", e.getMessage());
+            PodLogTail unavailable = new PodLogTail(properties.getTailLines(), properties.getMaxLineLength());
+            unavailable.accept("Log unavailable: " + e.getMessage());
+            return unavailable;
         }
     }
 
-    private static String getPrimeName(PersistentVolumeClaim pvc) {
-        return "prime-" + pvc.getMetadata().getName();
-    }
+    /// Frees the prime pod slot of the volume populator once its status is written and lets the queued volume
+    /// populators compete for it
+    private void releaseSlot(ReconcileContext context, ResticVolumePopulator volumePopulator) {
+        context.afterStatusWritten(() -> {
+            admissionController.release(volumePopulator);
 
-    private static PersistentVolumeClaim createPrimePVC(PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator, String primeName) {
-        PersistentVolumeClaim primePvc = new PersistentVolumeClaimBuilder()
-                .withNewMetadata()
-                .withName(primeName)
-                .withNamespace(pvc.getMetadata().getNamespace())
-                .withAnnotations(Map.of(
-                        OWNER_ANNOTATION_KEY, new ResourceId(pvc).toReference()
-                ))
-                .endMetadata()
-                .withNewSpec()
-                .withAccessModes(pvc.getSpec().getAccessModes())
-                .withResources(pvc.getSpec().getResources())
-                .withStorageClassName(pvc.getSpec().getStorageClassName())
-                .withVolumeMode(pvc.getSpec().getVolumeMode())
-                .endSpec()
-                .build();
-
-        return primePvc;
-    }
-
-
-    private static Pod createPrimePod(PersistentVolumeClaim pvc, ResticVolumePopulator volumePopulator, String primeName) {
-        Pod primePod = new PodBuilder()
-                .withNewMetadata()
-                .withName(primeName)
-                .withNamespace(pvc.getMetadata().getNamespace())
-                .withAnnotations(Map.of(
-                        OWNER_ANNOTATION_KEY, new ResourceId(pvc).toReference()
-                ))
-                .endMetadata()
-                .withNewSpec()
-                .withContainers(
-                        new ContainerBuilder()
-                                .withName(CONTAINER_NAME)
-                                .withImage(
-                                        volumePopulator.getSpec().getImage().getRepository() + ":" + volumePopulator.getSpec().getImage().getTag()
-                                )
-                                .withArgs(
-                                        "restore",
-                                        volumePopulator.getSpec().getSnapshot(),
-                                        "--target",
-                                        "."
-                                )
-                                .withWorkingDir(POD_MOUNT_PATH)
-                                .withEnvFrom(
-                                        new EnvFromSourceBuilder()
-                                                .withNewSecretRef()
-                                                .withName(volumePopulator.getSpec().getSecretName())
-                                                .endSecretRef()
-                                                .build()
-                                )
-                                .withVolumeMounts(
-                                        new VolumeMountBuilder()
-                                                .withName(POD_VOLUME_NAME)
-                                                .withMountPath(POD_MOUNT_PATH)
-                                                .build()
-                                )
-                                .build()
-                )
-                .withVolumes(
-                        new VolumeBuilder()
-                                .withName(POD_VOLUME_NAME)
-                                .withPersistentVolumeClaim(
-                                        new PersistentVolumeClaimVolumeSourceBuilder()
-                                                .withClaimName(primeName)
-                                                .build()
-                                )
-                                .build()
-                )
-                .withRestartPolicy("Never")
-                .withHostname(volumePopulator.getSpec().getHostname())
-                .endSpec()
-                .build();
-
-        return primePod;
+            for (ResticVolumePopulator queued : resourceCache.listVolumePopulators()) {
+                if (
+                        queued.getStatus() != null &&
+                        queued.getStatus().getStatus() == ResticVolumePopulatorStatus.Status.QUEUED &&
+                        queued.getStatus().getBoundPVC() != null
+                ) {
+                    enqueue(ReconcileRequest.pvc(ResourceId.fromReference(queued.getStatus().getBoundPVC())));
+                }
+            }
+        });
     }
 
-    private boolean isPvcWithResticVolumePopulator(PersistentVolumeClaim pvc) {
-        return pvc.getSpec().getDataSourceRef() != null &&
-                RESTC_VOLUME_POPULATOR_API_GROUP.equals(pvc.getSpec().getDataSourceRef().getApiGroup()) &&
-                RESTC_VOLUME_POPULATOR_KIND.equals(pvc.getSpec().getDataSourceRef().getKind());
+    private static ResticVolumePopulatorStatus.Timestamps timestamps(ResticVolumePopulator volumePopulator) {
+        if (volumePopulator.getStatus().getTimestamps() == null) {
+            volumePopulator.getStatus().setTimestamps(new ResticVolumePopulatorStatus.Timestamps());
+        }
+        return volumePopulator.getStatus().getTimestamps();
     }
 
-    private ResourceId getVolumePopulatorKey(PersistentVolumeClaim pvc) {
-        String refNamespace = pvc.getSpec().getDataSourceRef().getNamespace();
-        if (!StringUtils.hasText(refNamespace)) {
-            refNamespace = pvc.getMetadata().getNamespace();
+    /// Records the duration between two phase timestamps once the status holding them was written, missing
+    /// timestamps (e.g. restores started by an older version) are skipped
+    private void phaseCompleted(ReconcileContext context, String phase, String start, String end) {
+        if (start == null || end == null) {
+            return;
         }
 
-        return new ResourceId(refNamespace, pvc.getSpec().getDataSourceRef().getName());
+        Duration duration = Duration.between(Instant.parse(start), Instant.parse(end));
+        context.afterStatusWritten(() -> reconcileMetrics.phaseCompleted(phase, duration));
     }
 
-    record ResourceId(String namespace, String name) {
-        ResourceId(HasMetadata resource) {
-            this(
-                    resource.getMetadata().getNamespace(),
-                    resource.getMetadata().getName()
-            );
-        }
-
-        String toReference() {
-            return namespace + "/" + name;
+    private void enqueue(ReconcileRequest request) {
+        if (!shardMembership.owns(request.id().namespace())) {
+            return;
         }
 
-        static ResourceId fromReference(String reference) {
-            String[] split = reference.split("/");
-            return new ResourceId(split[0], split[1]);
-        }
+        reconcileQueue.add(request);
+    }
 
-        @Override
-        public String toString() {
-            return toReference();
-        }
+    private void sendEvent(ResticVolumePopulator volumePopulator, String reason, String note) {
+        eventRecorder.record(volumePopulator, reason, note);
     }
 
     /// endregion
@@ -0,0 +1,55 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/// Highest random weight hashing, a key belongs to the member with the highest hash of member and key
+///
+/// Adding or removing a member only moves the keys won or owned by that member.
+final class RendezvousHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private RendezvousHash() {
+    }
+
+    static String owner(Collection<String> members, String key) {
+        String owner = null;
+        long ownerWeight = 0;
+
+        for (String member : members) {
+            long weight = weight(member, key);
+            // ties are resolved by member name so every replica picks the same owner
+            if (
+                    owner == null ||
+                            Long.compareUnsigned(weight, ownerWeight) > 0 ||
+                            weight == ownerWeight && member.compareTo(owner) < 0
+            ) {
+                owner = member;
+                ownerWeight = weight;
+            }
+        }
+
+        return owner;
+    }
+
+    // FNV-1a followed by a 64 bit finalizer, stable across JVMs unlike String.hashCode of a combined string
+    static long weight(String member, String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : member.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        hash = (hash ^ 0xff) * FNV_PRIME;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
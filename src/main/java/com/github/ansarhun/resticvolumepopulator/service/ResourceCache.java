@@ -0,0 +1,143 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.informer.InformerGroup;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/// Reads resources from the informer stores, or from the API server when `live` is requested or the
+/// informer has not synced yet.
+///
+/// Objects from the stores are shared with the informers, only the volume populator is returned as a copy
+/// because reconcile mutates its status. Volume populators with a status written by this controller are returned
+/// as written until the informer delivers the write.
+@RequiredArgsConstructor
+@Service
+public class ResourceCache {
+
+    private final KubernetesClient kubernetesClient;
+    private final ApiCallMetrics apiCallMetrics;
+
+    private final InformerGroup<Pod> podInformer;
+    private final InformerGroup<PersistentVolumeClaim> pvcInformer;
+    private final InformerGroup<ResticVolumePopulator> resticVolumePopulatorInformer;
+
+    private final WrittenObjects<ResticVolumePopulator> writtenVolumePopulators = new WrittenObjects<>();
+
+    public PersistentVolumeClaim getPvc(ResourceId id, boolean live) {
+        if (live || !pvcInformer.hasSynced()) {
+            return apiCallMetrics.call("get", "persistentvolumeclaims", () ->
+                    kubernetesClient
+                            .persistentVolumeClaims()
+                            .inNamespace(id.namespace())
+                            .withName(id.name())
+                            .get()
+            );
+        }
+
+        return fromStore(pvcInformer, id);
+    }
+
+    public Pod getPod(ResourceId id, boolean live) {
+        if (!live && podInformer.hasSynced()) {
+            Pod pod = fromStore(podInformer, id);
+            if (pod != null) {
+                return pod;
+            }
+        }
+
+        // the informer only sees labeled prime pods, pods created by older versions are read directly
+        return apiCallMetrics.call("get", "pods", () ->
+                kubernetesClient
+                        .pods()
+                        .inNamespace(id.namespace())
+                        .withName(id.name())
+                        .get()
+        );
+    }
+
+    public ResticVolumePopulator getVolumePopulator(ResourceId id, boolean live) {
+        if (live || !resticVolumePopulatorInformer.hasSynced()) {
+            return apiCallMetrics.call("get", "resticvolumepopulators", () ->
+                    kubernetesClient
+                            .resources(ResticVolumePopulator.class)
+                            .inNamespace(id.namespace())
+                            .withName(id.name())
+                            .get()
+            );
+        }
+
+        ResticVolumePopulator volumePopulator = writtenVolumePopulators.resolve(
+                id,
+                fromStore(resticVolumePopulatorInformer, id)
+        );
+        if (volumePopulator == null) {
+            return null;
+        }
+
+        return kubernetesClient
+                .getKubernetesSerialization()
+                .clone(volumePopulator);
+    }
+
+    /// The status of a volume populator read at `previousResourceVersion` was written, `written` is the response
+    /// of the API server
+    public void volumePopulatorWritten(String previousResourceVersion, ResticVolumePopulator written) {
+        if (written != null) {
+            writtenVolumePopulators.written(previousResourceVersion, written);
+        }
+    }
+
+    /// Volume populators of the informer store, shared with the informer
+    public List<ResticVolumePopulator> listVolumePopulators() {
+        return resticVolumePopulatorInformer.list();
+    }
+
+    /// Priority of the volume populator the request belongs to, 0 when it is not in the informer stores
+    public int getPriority(ReconcileRequest request) {
+        ResourceId volumePopulatorId = getVolumePopulatorId(request);
+        if (volumePopulatorId == null) {
+            return 0;
+        }
+
+        ResticVolumePopulator volumePopulator = fromStore(resticVolumePopulatorInformer, volumePopulatorId);
+        if (volumePopulator == null || volumePopulator.getSpec() == null) {
+            return 0;
+        }
+
+        return volumePopulator.getSpec().getPriority();
+    }
+
+    /// Volume populator the request belongs to, `null` for a PVC request whose PVC is not in the informer store or
+    /// does not reference a volume populator
+    public ResourceId getVolumePopulatorId(ReconcileRequest request) {
+        if (request.type() == ReconcileRequest.Type.VOLUME_POPULATOR) {
+            return request.id();
+        }
+
+        PersistentVolumeClaim pvc = fromStore(pvcInformer, request.id());
+        if (pvc == null || !ResourceIndexes.isPvcWithResticVolumePopulator(pvc)) {
+            return null;
+        }
+
+        return ResourceIndexes.getVolumePopulatorKey(pvc);
+    }
+
+    public List<PersistentVolumeClaim> findPvcs(String indexName, String indexedValue) {
+        return pvcInformer.byIndex(indexName, indexedValue);
+    }
+
+    public List<Pod> findPods(String indexName, String indexedValue) {
+        return podInformer.byIndex(indexName, indexedValue);
+    }
+
+    private static <T extends HasMetadata> T fromStore(InformerGroup<T> informer, ResourceId id) {
+        return informer.getByKey(id.namespace(), id.name());
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+public record ResourceId(String namespace, String name) {
+    public ResourceId(HasMetadata resource) {
+        this(
+                resource.getMetadata().getNamespace(),
+                resource.getMetadata().getName()
+        );
+    }
+
+    public String toReference() {
+        return namespace + "/" + name;
+    }
+
+    public static ResourceId fromReference(String reference) {
+        String[] split = reference.split("/");
+        return new ResourceId(split[0], split[1]);
+    }
+
+    @Override
+    public String toString() {
+        return toReference();
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/// Informer indexes and the resource conventions they are built on
+public final class ResourceIndexes {
+
+    /// PVCs by the `namespace/name` of the volume populator in their `dataSourceRef`
+    public static final String PVC_BY_VOLUME_POPULATOR = "pvcByVolumePopulator";
+
+    /// Prime pods and PVCs by the `namespace/name` of the PVC they populate
+    public static final String BY_OWNER = "byOwner";
+
+    public static final String RESTC_VOLUME_POPULATOR_API_GROUP = new ResticVolumePopulator().getGroup();
+    public static final String RESTC_VOLUME_POPULATOR_KIND = new ResticVolumePopulator().getKind();
+
+    public static final String OWNER_ANNOTATION_KEY = RESTC_VOLUME_POPULATOR_KIND.toLowerCase() + "." + RESTC_VOLUME_POPULATOR_API_GROUP + "/owner";
+
+    /// Set on prime pods and PVCs, the pod informer only watches pods with this label
+    public static final String PRIME_LABEL_KEY = RESTC_VOLUME_POPULATOR_KIND.toLowerCase() + "." + RESTC_VOLUME_POPULATOR_API_GROUP + "/prime";
+    public static final String PRIME_LABEL_VALUE = "true";
+
+    private ResourceIndexes() {
+    }
+
+    public static List<String> pvcByVolumePopulator(PersistentVolumeClaim pvc) {
+        if (!isPvcWithResticVolumePopulator(pvc)) {
+            return List.of();
+        }
+
+        return List.of(getVolumePopulatorKey(pvc).toReference());
+    }
+
+    public static List<String> byOwner(HasMetadata resource) {
+        String owner = getOwnerReference(resource);
+        if (owner == null) {
+            return List.of();
+        }
+
+        return List.of(owner);
+    }
+
+    public static boolean isPvcWithResticVolumePopulator(PersistentVolumeClaim pvc) {
+        return pvc.getSpec().getDataSourceRef() != null &&
+                RESTC_VOLUME_POPULATOR_API_GROUP.equals(pvc.getSpec().getDataSourceRef().getApiGroup()) &&
+                RESTC_VOLUME_POPULATOR_KIND.equals(pvc.getSpec().getDataSourceRef().getKind());
+    }
+
+    public static ResourceId getVolumePopulatorKey(PersistentVolumeClaim pvc) {
+        String refNamespace = pvc.getSpec().getDataSourceRef().getNamespace();
+        if (!StringUtils.hasText(refNamespace)) {
+            refNamespace = pvc.getMetadata().getNamespace();
+        }
+
+        return new ResourceId(refNamespace, pvc.getSpec().getDataSourceRef().getName());
+    }
+
+    public static String getOwnerReference(HasMetadata resource) {
+        Map<String, String> annotations = resource.getMetadata().getAnnotations();
+        if (annotations == null) {
+            return null;
+        }
+
+        String owner = annotations.get(OWNER_ANNOTATION_KEY);
+        if (!StringUtils.hasText(owner)) {
+            return null;
+        }
+
+        return owner;
+    }
+}
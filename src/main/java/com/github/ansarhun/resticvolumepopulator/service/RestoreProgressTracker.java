@@ -0,0 +1,305 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.LogWatch;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/// Follows the `restic restore --json` output of running prime pods and publishes the progress into the status
+/// of the volume populator, at most once per `application.progress.update-interval`
+///
+/// At most `application.progress.max-followed` prime pods are followed at once, each by its own thread, further
+/// restores wait in the order they started running. Following stops when the restore leaves
+/// [ResticVolumePopulatorStatus.Status#PROVISIONING] or its namespace moves to another replica, updates are written
+/// on top of the cached status so a late one never overwrites a newer status.
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class RestoreProgressTracker {
+
+    private final KubernetesClient kubernetesClient;
+    private final ApiCallMetrics apiCallMetrics;
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties applicationProperties;
+    private final ResourceCache resourceCache;
+    private final ShardMembership shardMembership;
+
+    private ExecutorService progressExecutor;
+
+    // guarded by this, a restore is either followed or waiting for a free follower
+    private final Map<ResourceId, Follow> followed = new HashMap<>();
+    private final Map<ResourceId, ResourceId> pending = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        progressExecutor = Executors.newFixedThreadPool(
+                applicationProperties.getProgress().getMaxFollowed(),
+                new CustomizableThreadFactory("restore-progress-")
+        );
+    }
+
+    /// Follows the prime pod right away if a follower is free, otherwise once the restores waiting before it started
+    public synchronized void follow(ResourceId volumePopulatorId, Pod primePod) {
+        if (
+                !applicationProperties.getProgress().isEnabled() ||
+                        followed.containsKey(volumePopulatorId) ||
+                        pending.containsKey(volumePopulatorId)
+        ) {
+            return;
+        }
+
+        ResourceId primePodId = new ResourceId(primePod);
+        if (followed.size() < applicationProperties.getProgress().getMaxFollowed()) {
+            startFollowing(volumePopulatorId, primePodId);
+        } else {
+            log.debug("Restore progress of {} waits for a free follower", volumePopulatorId);
+            pending.put(volumePopulatorId, primePodId);
+        }
+    }
+
+    /// Stops following the restore, e.g. once it finished or was reset
+    public synchronized void cancel(ResourceId volumePopulatorId) {
+        pending.remove(volumePopulatorId);
+
+        Follow follow = followed.remove(volumePopulatorId);
+        if (follow != null) {
+            log.debug("Stopped following restore progress of {}", volumePopulatorId);
+            follow.cancel();
+            startPending();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        progressExecutor.shutdownNow();
+        followed.values().forEach(Follow::cancel);
+        followed.clear();
+        pending.clear();
+    }
+
+    private void startFollowing(ResourceId volumePopulatorId, ResourceId primePodId) {
+        Follow follow = new Follow();
+        followed.put(volumePopulatorId, follow);
+        follow.task = progressExecutor.submit(() -> track(volumePopulatorId, primePodId, follow));
+        log.debug("Following restore progress of {} from prime pod {}", volumePopulatorId, primePodId);
+    }
+
+    /// Hands free followers to the waiting restores that are still running
+    private void startPending() {
+        Iterator<Map.Entry<ResourceId, ResourceId>> iterator = pending.entrySet().iterator();
+        while (followed.size() < applicationProperties.getProgress().getMaxFollowed() && iterator.hasNext()) {
+            Map.Entry<ResourceId, ResourceId> next = iterator.next();
+            iterator.remove();
+
+            if (isProvisioning(resourceCache.getVolumePopulator(next.getKey(), false))) {
+                startFollowing(next.getKey(), next.getValue());
+            }
+        }
+    }
+
+    private synchronized void finished(ResourceId volumePopulatorId, Follow follow) {
+        if (followed.remove(volumePopulatorId, follow)) {
+            startPending();
+        }
+    }
+
+    private void track(ResourceId volumePopulatorId, ResourceId primePodId, Follow follow) {
+        long updateInterval = applicationProperties.getProgress().getUpdateInterval().toNanos();
+        long lastPublished = System.nanoTime() - updateInterval;
+
+        try {
+            // opened on the follower thread, the reconcile worker never waits for the log stream
+            LogWatch logWatch = apiCallMetrics.call("watch", "pods/log", () ->
+                    kubernetesClient
+                            .pods()
+                            .inNamespace(primePodId.namespace())
+                            .withName(primePodId.name())
+                            .inContainer(PrimeResources.CONTAINER_NAME)
+                            .watchLog()
+            );
+            if (!follow.opened(logWatch)) {
+                return;
+            }
+
+            try (
+                    logWatch;
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(logWatch.getOutput(), StandardCharsets.UTF_8)
+                    )
+            ) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    RestoreProgress progress = parse(objectMapper, line);
+                    if (progress == null) {
+                        continue;
+                    }
+
+                    long now = System.nanoTime();
+                    if (progress.summary() || now - lastPublished >= updateInterval) {
+                        if (!publish(volumePopulatorId, progress)) {
+                            break;
+                        }
+                        lastPublished = now;
+                    }
+                }
+            }
+        } catch (IOException | KubernetesClientException e) {
+            log.debug("Stopped following restore progress of {}: {}", volumePopulatorId, e.getMessage());
+        } finally {
+            finished(volumePopulatorId, follow);
+        }
+    }
+
+    /// Returns `false` if the restore is no longer followed by this replica
+    private boolean publish(ResourceId volumePopulatorId, RestoreProgress progress) {
+        ResticVolumePopulator volumePopulator = resourceCache.getVolumePopulator(volumePopulatorId, false);
+        if (!isProvisioning(volumePopulator) || !shardMembership.owns(volumePopulatorId.namespace())) {
+            return false;
+        }
+        String resourceVersion = volumePopulator.getMetadata().getResourceVersion();
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("percentDone", progress.percentDone());
+        status.put("bytesRestored", progress.bytesRestored());
+        status.put("totalBytes", progress.totalBytes());
+        status.put("filesRestored", progress.filesRestored());
+        status.put("totalFiles", progress.totalFiles());
+        status.put("bytesPerSecond", progress.bytesPerSecond());
+
+        try {
+            String patch = objectMapper.writeValueAsString(Map.of(
+                    "metadata", Map.of("resourceVersion", resourceVersion),
+                    "status", status
+            ));
+            ResticVolumePopulator written = apiCallMetrics.call("patch", "resticvolumepopulators/status", () ->
+                    kubernetesClient
+                            .resources(ResticVolumePopulator.class)
+                            .inNamespace(volumePopulatorId.namespace())
+                            .withName(volumePopulatorId.name())
+                            .subresource("status")
+                            .patch(PatchContext.of(PatchType.JSON_MERGE), patch)
+            );
+
+            // the next reconcile writes on top of the progress instead of conflicting with it
+            resourceCache.volumePopulatorWritten(resourceVersion, written);
+        } catch (KubernetesClientException e) {
+            if (e.getCode() == HttpURLConnection.HTTP_CONFLICT) {
+                // the status changed since it was cached, the next update is checked against it
+                log.debug("Skipped restore progress of {}, status changed", volumePopulatorId);
+            } else {
+                log.warn("Failed to publish restore progress of {}: {}", volumePopulatorId, e.getMessage());
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to publish restore progress of {}: {}", volumePopulatorId, e.getMessage());
+        }
+        return true;
+    }
+
+    /// Parses a `status` or `summary` line of `restic restore --json`, other lines return `null`
+    static RestoreProgress parse(ObjectMapper objectMapper, String line) {
+        if (!line.startsWith("{")) {
+            return null;
+        }
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+
+        String messageType = node.path("message_type").asText();
+        boolean summary = "summary".equals(messageType);
+        if (!summary && !"status".equals(messageType)) {
+            return null;
+        }
+
+        long bytesRestored = node.path("bytes_restored").asLong();
+        double secondsElapsed = node.path("seconds_elapsed").asDouble();
+
+        return new RestoreProgress(
+                summary ? 100 : (int) Math.floor(node.path("percent_done").asDouble() * 100),
+                bytesRestored,
+                node.path("total_bytes").asLong(),
+                node.path("files_restored").asLong(),
+                node.path("total_files").asLong(),
+                secondsElapsed > 0 ? (long) (bytesRestored / secondsElapsed) : null,
+                summary
+        );
+    }
+
+    private static boolean isProvisioning(ResticVolumePopulator volumePopulator) {
+        return volumePopulator != null &&
+                volumePopulator.getStatus() != null &&
+                volumePopulator.getStatus().getStatus() == ResticVolumePopulatorStatus.Status.PROVISIONING;
+    }
+
+    /// Task following a prime pod and its log stream once opened
+    private static class Follow {
+        private volatile Future<?> task;
+
+        private LogWatch logWatch;
+        private boolean cancelled;
+
+        /// Returns `false` and closes the stream if the follow was cancelled while it was opened
+        synchronized boolean opened(LogWatch logWatch) {
+            if (cancelled) {
+                logWatch.close();
+                return false;
+            }
+
+            this.logWatch = logWatch;
+            return true;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (logWatch != null) {
+                logWatch.close();
+            }
+
+            Future<?> started = task;
+            if (started != null) {
+                started.cancel(true);
+            }
+        }
+    }
+
+    record RestoreProgress(
+            int percentDone,
+            long bytesRestored,
+            long totalBytes,
+            long filesRestored,
+            long totalFiles,
+            Long bytesPerSecond,
+            boolean summary
+    ) {
+    }
+}
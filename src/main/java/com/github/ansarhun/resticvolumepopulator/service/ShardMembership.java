@@ -0,0 +1,226 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextStoppedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/// Splits the namespaces between the active controller replicas
+///
+/// Every replica renews its own Lease labeled with the shard group and lists the Leases of the group to find the
+/// live members. A namespace is owned by one member picked by rendezvous hashing, so a joining or leaving replica
+/// only moves the namespaces it takes or gives up. Without sharding every namespace is owned.
+///
+/// Members delete the Leases of their group that expired a lease duration ago, e.g. of replicas that crashed
+/// before removing their own.
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class ShardMembership {
+
+    public static final String SHARD_GROUP_LABEL_KEY = "resticvolumepopulator.ansarhun.github.com/shard-group";
+
+    private final ApplicationProperties applicationProperties;
+    private final KubernetesClient kubernetesClient;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    private final String identity = System.getenv("HOSTNAME") != null
+            ? System.getenv("HOSTNAME")
+            : UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService membershipExecutor =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("shard-membership-"));
+
+    private String namespace;
+
+    @Getter
+    private volatile List<String> members = List.of();
+
+    public boolean isEnabled() {
+        return applicationProperties.getSharding().isEnabled();
+    }
+
+    public boolean owns(String resourceNamespace) {
+        if (!isEnabled()) {
+            return true;
+        }
+
+        return identity.equals(RendezvousHash.owner(members, resourceNamespace));
+    }
+
+    /// Joins the group before the informers start, their initial events are dropped for namespaces not owned yet.
+    /// If the first refresh fails the members change later and the owned namespaces are reconciled from the cache.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE - 2)
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        ApplicationProperties.Sharding sharding = applicationProperties.getSharding();
+        namespace = sharding.getLeaseNamespace() != null ? sharding.getLeaseNamespace() : kubernetesClient.getNamespace();
+
+        Gauge
+                .builder("shard.members", this, m -> m.getMembers().size())
+                .description("Number of live controller replicas sharing the namespaces")
+                .register(meterRegistry);
+
+        log.info("Joining shard group {} in {} as {}", sharding.getGroup(), namespace, identity);
+        refresh();
+        membershipExecutor.scheduleWithFixedDelay(
+                this::refresh,
+                sharding.getRenewInterval().toMillis(),
+                sharding.getRenewInterval().toMillis(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    /// Removes the Lease of this replica after its workers drained, the other members take over right away
+    @EventListener({ContextStoppedEvent.class, ContextClosedEvent.class})
+    @Order
+    public void stop() {
+        if (!isEnabled() || membershipExecutor.isShutdown()) {
+            return;
+        }
+
+        membershipExecutor.shutdownNow();
+        try {
+            kubernetesClient
+                    .leases()
+                    .inNamespace(namespace)
+                    .withName(leaseName())
+                    .delete();
+            log.info("Left shard group {}", applicationProperties.getSharding().getGroup());
+        } catch (Exception e) {
+            log.warn("Failed to delete shard Lease {}", e.getMessage());
+        }
+    }
+
+    private void refresh() {
+        ApplicationProperties.Sharding sharding = applicationProperties.getSharding();
+
+        try {
+            ZonedDateTime now = ZonedDateTime.now();
+            renew(sharding, now);
+
+            List<Lease> leases = kubernetesClient
+                    .leases()
+                    .inNamespace(namespace)
+                    .withLabel(SHARD_GROUP_LABEL_KEY, sharding.getGroup())
+                    .list()
+                    .getItems();
+
+            List<String> live = leases
+                    .stream()
+                    .filter(lease -> isLive(lease, now))
+                    .map(lease -> lease.getSpec().getHolderIdentity())
+                    .sorted()
+                    .toList();
+
+            leases
+                    .stream()
+                    .filter(lease -> isAbandoned(lease, now))
+                    .forEach(this::deleteAbandoned);
+
+            if (!live.equals(members)) {
+                log.info("Shard members changed {} -> {}", members, live);
+                members = live;
+                applicationEventPublisher.publishEvent(new ShardsChangedEvent(live));
+            }
+        } catch (Exception e) {
+            // keep the last known members, the other replicas drop this one once its Lease expires
+            log.warn("Failed to refresh shard membership {}", e.getMessage());
+        }
+    }
+
+    private void renew(ApplicationProperties.Sharding sharding, ZonedDateTime now) {
+        Lease lease = new LeaseBuilder()
+                .withNewMetadata()
+                    .withNamespace(namespace)
+                    .withName(leaseName())
+                    .withLabels(Map.of(SHARD_GROUP_LABEL_KEY, sharding.getGroup()))
+                .endMetadata()
+                .withNewSpec()
+                    .withHolderIdentity(identity)
+                    .withLeaseDurationSeconds((int) sharding.getLeaseDuration().toSeconds())
+                    .withRenewTime(now)
+                .endSpec()
+                .build();
+
+        kubernetesClient
+                .leases()
+                .inNamespace(namespace)
+                .resource(lease)
+                .forceConflicts()
+                .serverSideApply();
+    }
+
+    /// Deletes the Lease unless it was renewed since it was listed
+    private void deleteAbandoned(Lease lease) {
+        try {
+            kubernetesClient
+                    .leases()
+                    .inNamespace(namespace)
+                    .withName(lease.getMetadata().getName())
+                    .lockResourceVersion(lease.getMetadata().getResourceVersion())
+                    .delete();
+            log.info("Deleted expired shard Lease {} of {}", lease.getMetadata().getName(), lease.getSpec().getHolderIdentity());
+        } catch (Exception e) {
+            log.debug("Failed to delete expired shard Lease {} {}", lease.getMetadata().getName(), e.getMessage());
+        }
+    }
+
+    private static boolean isLive(Lease lease, ZonedDateTime now) {
+        if (lease.getSpec() == null || lease.getSpec().getHolderIdentity() == null || lease.getSpec().getRenewTime() == null) {
+            return false;
+        }
+
+        return lease.getSpec().getRenewTime().plus(leaseDuration(lease)).isAfter(now);
+    }
+
+    /// Expired for another lease duration, leaves room for clock skew between the replicas
+    private static boolean isAbandoned(Lease lease, ZonedDateTime now) {
+        if (lease.getSpec() == null || lease.getSpec().getRenewTime() == null) {
+            return false;
+        }
+
+        return lease.getSpec().getRenewTime().plus(leaseDuration(lease).multipliedBy(2)).isBefore(now);
+    }
+
+    private static Duration leaseDuration(Lease lease) {
+        return Duration.ofSeconds(
+                lease.getSpec().getLeaseDurationSeconds() != null ? lease.getSpec().getLeaseDurationSeconds() : 0
+        );
+    }
+
+    private String leaseName() {
+        return applicationProperties.getSharding().getGroup() + "-" + identity;
+    }
+
+    public record ShardsChangedEvent(List<String> members) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/// Token bucket refilled with `qps` tokens per second up to `burst` tokens, not thread safe
+class TokenBucket {
+
+    private final double qps;
+    private final int burst;
+    private final LongSupplier nanoTime;
+
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double qps, int burst) {
+        this(qps, burst, System::nanoTime);
+    }
+
+    TokenBucket(double qps, int burst, LongSupplier nanoTime) {
+        this.qps = qps;
+        this.burst = burst;
+        this.nanoTime = nanoTime;
+        this.tokens = burst;
+        this.lastRefill = nanoTime.getAsLong();
+    }
+
+    /// Takes a token if one is available
+    boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+
+        tokens -= 1;
+        return true;
+    }
+
+    /// Takes a token even if none is available and returns the time until it would have been available
+    Duration reserve() {
+        refill();
+
+        tokens -= 1;
+        if (tokens >= 0) {
+            return Duration.ZERO;
+        }
+
+        return Duration.ofNanos((long) (-tokens / qps * 1_000_000_000d));
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * qps / 1_000_000_000d);
+        lastRefill = now;
+    }
+}
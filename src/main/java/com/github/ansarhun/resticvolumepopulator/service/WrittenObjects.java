@@ -0,0 +1,52 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// Objects written by the controller that the informer has not delivered yet
+///
+/// A pass started right after a write reads the written object instead of the stale one of the store, so it
+/// neither repeats the actions recorded by the write nor conflicts on the old resource version. The store caught
+/// up once its resource version moved away from the one the write was based on.
+class WrittenObjects<T extends HasMetadata> {
+
+    // the store normally catches up within milliseconds, a write the informer never delivers is not kept forever
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    private final Map<ResourceId, Written<T>> written = new ConcurrentHashMap<>();
+
+    private record Written<T>(String previousResourceVersion, T object, Instant since) {
+    }
+
+    /// `object` as returned by the API server for a write based on `previousResourceVersion`
+    void written(String previousResourceVersion, T object) {
+        Instant now = Instant.now();
+        written.values().removeIf(entry -> entry.since().plus(TTL).isBefore(now));
+
+        written.put(new ResourceId(object), new Written<>(previousResourceVersion, object, now));
+    }
+
+    /// The written object while the store still holds the version it replaced, otherwise the stored one
+    T resolve(ResourceId id, T stored) {
+        Written<T> entry = written.get(id);
+        if (entry == null) {
+            return stored;
+        }
+
+        if (
+                stored != null &&
+                        Objects.equals(entry.previousResourceVersion(), stored.getMetadata().getResourceVersion()) &&
+                        entry.since().plus(TTL).isAfter(Instant.now())
+        ) {
+            return entry.object();
+        }
+
+        written.remove(id, entry);
+        return stored;
+    }
+}
@@ -2,6 +2,8 @@ package com.github.ansarhun.resticvolumepopulator;
 
 import com.github.ansarhun.resticvolumepopulator.config.KubernetesConfiguration;
 import io.fabric8.kubernetes.client.Config;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.devtools.restart.RestartScope;
@@ -34,6 +36,11 @@ public class TestResticVolumePopulatorApplication {
 				);
 	}
 
+	@Bean
+	public SpanExporter loggingSpanExporter() {
+		return LoggingSpanExporter.create();
+	}
+
 	@Bean
 	public ApplicationListener<ApplicationReadyEvent> writeKubeConfigFile(
 			K3sContainer k3sContainer
@@ -0,0 +1,93 @@
+package com.github.ansarhun.resticvolumepopulator.component;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaderElectionRecord;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.Lock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+class LeaderElectionTest {
+
+    private static final ZonedDateTime NOW = ZonedDateTime.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void testFailoverAfterCrashIsMeasuredFromLastRenewal() {
+        LeaderElectionRecord crashed = record("old-leader", NOW.minusSeconds(17));
+
+        assertThat(LeaderElection.failover(crashed, NOW), equalTo(Duration.ofSeconds(17)));
+    }
+
+    @Test
+    void testFailoverWithoutPreviousLeader() {
+        assertThat(LeaderElection.failover(null, NOW), nullValue());
+    }
+
+    @Test
+    void testFailoverIsNeverNegative() {
+        assertThat(LeaderElection.failover(record("old-leader", NOW.plusSeconds(1)), NOW), equalTo(Duration.ZERO));
+    }
+
+    @Test
+    void testReleasedLeaseIsKeptForPlannedHandover() {
+        FakeLock delegate = new FakeLock();
+        LeaderElection.ObservingLock lock = new LeaderElection.ObservingLock(delegate);
+
+        LeaderElectionRecord held = record("old-leader", NOW.minusSeconds(5));
+        delegate.record = held;
+        lock.get(null);
+        assertThat(lock.getPreviousRecord(), sameInstance(held));
+
+        // the old leader drained and released the Lease on shutdown
+        LeaderElectionRecord released = record("", NOW.minusSeconds(2));
+        delegate.record = released;
+        lock.get(null);
+        assertThat(lock.getPreviousRecord(), sameInstance(released));
+
+        // this replica took over, its own record does not replace the one it took over from
+        delegate.record = record("standby", NOW);
+        lock.get(null);
+        assertThat(lock.getPreviousRecord(), sameInstance(released));
+        assertThat(LeaderElection.failover(lock.getPreviousRecord(), NOW), equalTo(Duration.ofSeconds(2)));
+    }
+
+    private static LeaderElectionRecord record(String holderIdentity, ZonedDateTime renewTime) {
+        return new LeaderElectionRecord(holderIdentity, Duration.ofSeconds(15), NOW.minusMinutes(10), renewTime, 1);
+    }
+
+    private static class FakeLock implements Lock {
+
+        private LeaderElectionRecord record;
+
+        @Override
+        public LeaderElectionRecord get(KubernetesClient client) {
+            return record;
+        }
+
+        @Override
+        public void create(KubernetesClient client, LeaderElectionRecord leaderElectionRecord) {
+            record = leaderElectionRecord;
+        }
+
+        @Override
+        public void update(KubernetesClient client, LeaderElectionRecord leaderElectionRecord) {
+            record = leaderElectionRecord;
+        }
+
+        @Override
+        public String identity() {
+            return "standby";
+        }
+
+        @Override
+        public String describe() {
+            return "fake";
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.ansarhun.resticvolumepopulator.informer;
+
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntryBuilder;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class PersistentVolumeClaimTransformTest {
+
+    private final PersistentVolumeClaimTransform transform = new PersistentVolumeClaimTransform();
+
+    @Test
+    void testTrimKeepsFieldsReadByController() {
+        PersistentVolumeClaim trimmed = transform.apply(createPvc(0));
+
+        assertThat(trimmed.getMetadata().getName(), equalTo("pvc-0"));
+        assertThat(trimmed.getMetadata().getNamespace(), equalTo("default"));
+        assertThat(trimmed.getMetadata().getUid(), equalTo("uid-0"));
+        assertThat(trimmed.getMetadata().getResourceVersion(), equalTo("1000"));
+        assertThat(trimmed.getMetadata().getCreationTimestamp(), equalTo("2025-01-01T00:00:00Z"));
+        assertThat(trimmed.getMetadata().getAnnotations(), equalTo(Map.of("owner", "default/target")));
+        assertThat(trimmed.getMetadata().getLabels(), anyOf(nullValue(), anEmptyMap()));
+        assertThat(trimmed.getMetadata().getManagedFields(), anyOf(nullValue(), empty()));
+        assertThat(trimmed.getSpec().getDataSourceRef().getName(), equalTo("populator"));
+        assertThat(trimmed.getSpec().getStorageClassName(), equalTo("standard"));
+        assertThat(trimmed.getSpec().getVolumeName(), equalTo("pv-0"));
+        assertThat(trimmed.getSpec().getAccessModes(), equalTo(List.of("ReadWriteOnce")));
+        assertThat(trimmed.getStatus().getPhase(), equalTo("Bound"));
+    }
+
+    @Test
+    void testTrimDropsFieldsNotReadByController() {
+        PersistentVolumeClaim trimmed = transform.apply(createPvc(0));
+
+        assertThat(trimmed.getMetadata().getAnnotations(), not(hasKey(PersistentVolumeClaimTransform.LAST_APPLIED_ANNOTATION_KEY)));
+        assertThat(trimmed.getMetadata().getFinalizers(), anyOf(nullValue(), empty()));
+        assertThat(trimmed.getStatus().getAccessModes(), anyOf(nullValue(), empty()));
+        assertThat(trimmed.getStatus().getCapacity(), anyOf(nullValue(), anEmptyMap()));
+    }
+
+    @Test
+    void testTrimWithoutAnnotationsSpecAndStatus() {
+        PersistentVolumeClaim pvc = createPvc(0);
+        pvc.getMetadata().setAnnotations(Map.of(PersistentVolumeClaimTransform.LAST_APPLIED_ANNOTATION_KEY, "{}"));
+        pvc.setSpec(null);
+        pvc.setStatus(null);
+
+        PersistentVolumeClaim trimmed = transform.apply(pvc);
+
+        assertThat(trimmed.getMetadata().getName(), equalTo("pvc-0"));
+        assertThat(trimmed.getMetadata().getAnnotations(), anyOf(nullValue(), anEmptyMap()));
+        assertThat(trimmed.getSpec(), nullValue());
+        assertThat(trimmed.getStatus(), nullValue());
+    }
+
+    @Test
+    void testTrimReducesRetainedHeap() {
+        List<PersistentVolumeClaim> pvcs = IntStream
+                .range(0, 5_000)
+                .mapToObj(PersistentVolumeClaimTransformTest::createPvc)
+                .toList();
+        List<PersistentVolumeClaim> trimmed = pvcs
+                .stream()
+                .map(transform)
+                .toList();
+
+        // everything reachable from the store, objects shared between PVCs are counted once
+        long fullSize = GraphLayout.parseInstance(pvcs).totalSize();
+        long trimmedSize = GraphLayout.parseInstance(trimmed).totalSize();
+
+        assertThat(
+                "retained size of 5000 trimmed PVCs " + trimmedSize + " bytes, full " + fullSize + " bytes",
+                trimmedSize * 4,
+                lessThan(fullSize * 3)
+        );
+    }
+
+    private static PersistentVolumeClaim createPvc(int index) {
+        return new PersistentVolumeClaimBuilder()
+                .withNewMetadata()
+                    .withName("pvc-" + index)
+                    .withNamespace("default")
+                    .withUid("uid-" + index)
+                    .withResourceVersion("1000")
+                    .withCreationTimestamp("2025-01-01T00:00:00Z")
+                    .withLabels(Map.of("app.kubernetes.io/name", "test", "app.kubernetes.io/instance", "test-" + index))
+                    .withAnnotations(Map.of(
+                            "owner", "default/target",
+                            PersistentVolumeClaimTransform.LAST_APPLIED_ANNOTATION_KEY, "{\"apiVersion\":\"v1\",\"kind\":\"PersistentVolumeClaim\",\"metadata\":{\"name\":\"pvc-" + index + "\",\"namespace\":\"default\"},\"spec\":{\"accessModes\":[\"ReadWriteOnce\"],\"resources\":{\"requests\":{\"storage\":\"1Gi\"}}}}"
+                    ))
+                    .withManagedFields(
+                            new ManagedFieldsEntryBuilder()
+                                    .withManager("kubectl-client-side-apply")
+                                    .withOperation("Update")
+                                    .withApiVersion("v1")
+                                    .withTime("2025-01-01T00:00:00Z")
+                                    .withFieldsType("FieldsV1")
+                                    .build(),
+                            new ManagedFieldsEntryBuilder()
+                                    .withManager("kube-controller-manager")
+                                    .withOperation("Update")
+                                    .withApiVersion("v1")
+                                    .withTime("2025-01-01T00:00:00Z")
+                                    .withFieldsType("FieldsV1")
+                                    .withSubresource("status")
+                                    .build()
+                    )
+                    .withFinalizers("kubernetes.io/pvc-protection")
+                .endMetadata()
+                .withNewSpec()
+                    .withAccessModes("ReadWriteOnce")
+                    .withStorageClassName("standard")
+                    .withVolumeMode("Filesystem")
+                    .withVolumeName("pv-" + index)
+                    .withNewResources()
+                        .withRequests(Map.of("storage", new Quantity("1Gi")))
+                    .endResources()
+                    .withNewDataSourceRef()
+                        .withApiGroup("ansarhun.github.com")
+                        .withKind("ResticVolumePopulator")
+                        .withName("populator")
+                    .endDataSourceRef()
+                .endSpec()
+                .withNewStatus()
+                    .withPhase("Bound")
+                    .withAccessModes("ReadWriteOnce")
+                    .withCapacity(Map.of("storage", new Quantity("1Gi")))
+                .endStatus()
+                .build();
+    }
+}
@@ -0,0 +1,366 @@
+package com.github.ansarhun.resticvolumepopulator.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.ansarhun.resticvolumepopulator.config.KubernetesConfiguration;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorSpec;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import com.github.ansarhun.resticvolumepopulator.service.ResourceIndexes;
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/// Throughput of the reconcile pipeline against the mock API server in CRUD mode. A simulated kubelet and PV
+/// controller terminate the prime pods and bind the volumes, no containers are needed.
+///
+/// Run with `./gradlew loadTest`, sized by `-Dloadtest.restores`, `-Dloadtest.namespaces` and
+/// `-Dloadtest.timeout`. The results are printed and written to `build/reports/load/reconcile.json`.
+@Tag("load")
+@SpringBootTest(properties = {
+        "application.reconcile.wait-interval=200ms",
+        "application.progress.enabled=false"
+})
+@EnableKubernetesMockClient(crud = true)
+class ReconcileLoadTest {
+
+    private static final int RESTORES = Integer.getInteger("loadtest.restores", 2000);
+    private static final int NAMESPACES = Integer.getInteger("loadtest.namespaces", 20);
+    private static final Duration TIMEOUT = Duration.parse(System.getProperty("loadtest.timeout", "PT10M"));
+
+    static KubernetesClient client;
+
+    @TestConfiguration
+    static class TestContextConfiguration {
+
+        @Bean
+        public KubernetesConfiguration.KubernetesClientBuilderCustomizer testKubernetesClient() {
+            return kubernetesClientBuilder ->
+                    kubernetesClientBuilder.withConfig(client.getConfiguration());
+        }
+    }
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final ExecutorService simulator = Executors.newFixedThreadPool(8);
+    private final List<SharedIndexInformer<?>> informers = new ArrayList<>();
+
+    private final Map<String, Instant> created = new ConcurrentHashMap<>();
+    private final Map<String, Duration> timeToFinished = new ConcurrentHashMap<>();
+    private final CountDownLatch finished = new CountDownLatch(RESTORES);
+
+    @AfterEach
+    void tearDown() {
+        informers.forEach(SharedIndexInformer::stop);
+        simulator.shutdownNow();
+    }
+
+    @Test
+    void reconcileThroughput() throws InterruptedException, IOException {
+        simulateCluster();
+
+        for (int i = 0; i < NAMESPACES; i++) {
+            client.namespaces()
+                    .resource(new NamespaceBuilder().withNewMetadata().withName(namespace(i)).endMetadata().build())
+                    .create();
+        }
+
+        double reconcilesBefore = count("reconcile.duration");
+        double apiCallsBefore = count("kubernetes.api.requests");
+        Instant start = Instant.now();
+
+        for (int i = 0; i < RESTORES; i++) {
+            createRestore(namespace(i % NAMESPACES), "restore-" + i);
+        }
+
+        boolean completed = finished.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        Duration elapsed = Duration.between(start, Instant.now());
+
+        Map<String, Object> report = report(
+                elapsed,
+                count("reconcile.duration") - reconcilesBefore,
+                count("kubernetes.api.requests") - apiCallsBefore
+        );
+        System.out.println("Reconcile load test " + report);
+
+        File reportFile = new File("build/reports/load/reconcile.json");
+        reportFile.getParentFile().mkdirs();
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(reportFile, report);
+
+        assertThat("restores finished within " + TIMEOUT, completed, equalTo(true));
+    }
+
+    /// region Cluster simulation
+
+    private void simulateCluster() {
+        SharedIndexInformer<ResticVolumePopulator> volumePopulators = client
+                .resources(ResticVolumePopulator.class)
+                .inAnyNamespace()
+                .inform(new ResourceEventHandler<>() {
+                    @Override
+                    public void onAdd(ResticVolumePopulator volumePopulator) {
+                    }
+
+                    @Override
+                    public void onUpdate(ResticVolumePopulator oldVolumePopulator, ResticVolumePopulator newVolumePopulator) {
+                        volumePopulatorUpdated(newVolumePopulator);
+                    }
+
+                    @Override
+                    public void onDelete(ResticVolumePopulator volumePopulator, boolean deletedFinalStateUnknown) {
+                    }
+                });
+
+        SharedIndexInformer<Pod> primePods = client
+                .pods()
+                .inAnyNamespace()
+                .withLabel(ResourceIndexes.PRIME_LABEL_KEY, ResourceIndexes.PRIME_LABEL_VALUE)
+                .inform(new ResourceEventHandler<>() {
+                    @Override
+                    public void onAdd(Pod pod) {
+                        simulator.execute(() -> runPrimePod(pod));
+                    }
+
+                    @Override
+                    public void onUpdate(Pod oldPod, Pod newPod) {
+                    }
+
+                    @Override
+                    public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
+                    }
+                });
+
+        SharedIndexInformer<PersistentVolume> persistentVolumes = client
+                .persistentVolumes()
+                .inform(new ResourceEventHandler<>() {
+                    @Override
+                    public void onAdd(PersistentVolume persistentVolume) {
+                    }
+
+                    @Override
+                    public void onUpdate(PersistentVolume oldPersistentVolume, PersistentVolume newPersistentVolume) {
+                        if (!Objects.equals(oldPersistentVolume.getSpec().getClaimRef().getName(), newPersistentVolume.getSpec().getClaimRef().getName())) {
+                            simulator.execute(() -> bindRebound(oldPersistentVolume, newPersistentVolume));
+                        }
+                    }
+
+                    @Override
+                    public void onDelete(PersistentVolume persistentVolume, boolean deletedFinalStateUnknown) {
+                    }
+                });
+
+        informers.addAll(List.of(volumePopulators, primePods, persistentVolumes));
+    }
+
+    /// Binds a volume to the prime PVC and terminates the prime pod as a successful restore
+    private void runPrimePod(Pod primePod) {
+        String namespace = primePod.getMetadata().getNamespace();
+        String primeName = primePod.getMetadata().getName();
+
+        PersistentVolumeClaim primePvc = client.persistentVolumeClaims().inNamespace(namespace).withName(primeName).get();
+        String volumeName = "pv-" + namespace + "-" + primeName;
+
+        client.persistentVolumes()
+                .resource(
+                        new PersistentVolumeBuilder()
+                                .withNewMetadata()
+                                    .withName(volumeName)
+                                .endMetadata()
+                                .withNewSpec()
+                                    .withClaimRef(
+                                            new ObjectReferenceBuilder()
+                                                    .withName(primeName)
+                                                    .withNamespace(namespace)
+                                                    .withUid(primePvc.getMetadata().getUid())
+                                                    .build()
+                                    )
+                                .endSpec()
+                                .build()
+                )
+                .create();
+
+        client.persistentVolumeClaims()
+                .inNamespace(namespace)
+                .withName(primeName)
+                .edit(pvc -> new PersistentVolumeClaimBuilder(pvc)
+                        .editSpec().withVolumeName(volumeName).endSpec()
+                        .build());
+        setPvcPhase(namespace, primeName, "Bound");
+
+        String now = Instant.now().toString();
+        client.pods()
+                .inNamespace(namespace)
+                .withName(primeName)
+                .editStatus(pod -> new PodBuilder(pod)
+                        .withNewStatus()
+                            .withPhase("Succeeded")
+                            .addNewContainerStatus()
+                                .withName("restic")
+                                .withNewState()
+                                    .withNewTerminated()
+                                        .withReason("Completed")
+                                        .withExitCode(0)
+                                        .withStartedAt(now)
+                                        .withFinishedAt(now)
+                                    .endTerminated()
+                                .endState()
+                            .endContainerStatus()
+                        .endStatus()
+                        .build());
+    }
+
+    /// The volume was handed to the target PVC, the prime PVC loses it
+    private void bindRebound(PersistentVolume oldPersistentVolume, PersistentVolume newPersistentVolume) {
+        ObjectReference primeClaim = oldPersistentVolume.getSpec().getClaimRef();
+        ObjectReference targetClaim = newPersistentVolume.getSpec().getClaimRef();
+
+        setPvcPhase(primeClaim.getNamespace(), primeClaim.getName(), "Lost");
+
+        client.persistentVolumeClaims()
+                .inNamespace(targetClaim.getNamespace())
+                .withName(targetClaim.getName())
+                .edit(pvc -> new PersistentVolumeClaimBuilder(pvc)
+                        .editSpec().withVolumeName(newPersistentVolume.getMetadata().getName()).endSpec()
+                        .build());
+        setPvcPhase(targetClaim.getNamespace(), targetClaim.getName(), "Bound");
+    }
+
+    private void volumePopulatorUpdated(ResticVolumePopulator volumePopulator) {
+        if (
+                volumePopulator.getStatus() == null ||
+                volumePopulator.getStatus().getStatus() != ResticVolumePopulatorStatus.Status.FINISHED
+        ) {
+            return;
+        }
+
+        String key = volumePopulator.getMetadata().getNamespace() + "/" + volumePopulator.getMetadata().getName();
+        Instant createdAt = created.get(key);
+        if (createdAt != null && timeToFinished.putIfAbsent(key, Duration.between(createdAt, Instant.now())) == null) {
+            finished.countDown();
+        }
+    }
+
+    private void setPvcPhase(String namespace, String name, String phase) {
+        client.persistentVolumeClaims()
+                .inNamespace(namespace)
+                .withName(name)
+                .editStatus(pvc -> new PersistentVolumeClaimBuilder(pvc)
+                        .withNewStatus().withPhase(phase).endStatus()
+                        .build());
+    }
+
+    /// endregion
+
+    /// region Helpers
+
+    private void createRestore(String namespace, String name) {
+        ResticVolumePopulatorSpec spec = new ResticVolumePopulatorSpec();
+        spec.setSecretName("restic");
+        spec.setHostname(name);
+
+        ResticVolumePopulator volumePopulator = new ResticVolumePopulator();
+        volumePopulator.getMetadata().setName(name);
+        volumePopulator.getMetadata().setNamespace(namespace);
+        volumePopulator.setSpec(spec);
+
+        created.put(namespace + "/" + name, Instant.now());
+
+        client.resources(ResticVolumePopulator.class).inNamespace(namespace).resource(volumePopulator).create();
+
+        client.persistentVolumeClaims()
+                .inNamespace(namespace)
+                .resource(
+                        new PersistentVolumeClaimBuilder()
+                                .withNewMetadata()
+                                    .withName(name)
+                                    .withNamespace(namespace)
+                                .endMetadata()
+                                .withNewSpec()
+                                    .withAccessModes("ReadWriteOnce")
+                                    .withNewResources()
+                                        .addToRequests("storage", new Quantity("1Gi"))
+                                    .endResources()
+                                    .withNewDataSourceRef()
+                                        .withApiGroup(ResourceIndexes.RESTC_VOLUME_POPULATOR_API_GROUP)
+                                        .withKind(ResourceIndexes.RESTC_VOLUME_POPULATOR_KIND)
+                                        .withName(name)
+                                    .endDataSourceRef()
+                                .endSpec()
+                                .withNewStatus()
+                                    .withPhase("Pending")
+                                .endStatus()
+                                .build()
+                )
+                .create();
+        setPvcPhase(namespace, name, "Pending");
+    }
+
+    private Map<String, Object> report(Duration elapsed, double reconciles, double apiCalls) {
+        List<Duration> durations = new ArrayList<>(timeToFinished.values());
+        Collections.sort(durations);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("restores", RESTORES);
+        report.put("namespaces", NAMESPACES);
+        report.put("finished", durations.size());
+        report.put("elapsedSeconds", elapsed.toMillis() / 1000.0);
+        report.put("reconcilesPerSecond", reconciles / Math.max(elapsed.toMillis() / 1000.0, 0.001));
+        report.put("reconcilesPerRestore", reconciles / RESTORES);
+        report.put("apiCallsPerRestore", apiCalls / RESTORES);
+        report.put("timeToFinishedMillis", Map.of(
+                "p50", percentile(durations, 0.50),
+                "p90", percentile(durations, 0.90),
+                "p99", percentile(durations, 0.99),
+                "max", percentile(durations, 1.0)
+        ));
+        return report;
+    }
+
+    private static long percentile(List<Duration> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0)).toMillis();
+    }
+
+    private double count(String timerName) {
+        return meterRegistry
+                .find(timerName)
+                .timers()
+                .stream()
+                .mapToDouble(Timer::count)
+                .sum();
+    }
+
+    private static String namespace(int index) {
+        return "tenant-" + index;
+    }
+
+    /// endregion
+}
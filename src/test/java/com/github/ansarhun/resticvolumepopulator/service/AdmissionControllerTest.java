@@ -0,0 +1,131 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorSpec;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class AdmissionControllerTest {
+
+    private ApplicationProperties applicationProperties;
+    private AdmissionController admissionController;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties = new ApplicationProperties();
+        admissionController = new AdmissionController(applicationProperties, null);
+    }
+
+    @Test
+    void testEverythingIsAdmittedWithoutLimits() {
+        ResticVolumePopulator active = create("a", "active", "restic", ResticVolumePopulatorStatus.Status.PROVISIONING, 0);
+        ResticVolumePopulator bound = create("a", "bound", "restic", ResticVolumePopulatorStatus.Status.BOUND, 1);
+
+        assertThat(admissionController.admit(bound, List.of(active, bound)).admitted(), equalTo(true));
+    }
+
+    @Test
+    void testGlobalLimitQueuesInInitializationOrder() {
+        applicationProperties.getAdmission().setMaxActive(1);
+
+        ResticVolumePopulator active = create("a", "active", "restic", ResticVolumePopulatorStatus.Status.CLEANUP, 0);
+        ResticVolumePopulator first = create("b", "first", "restic", ResticVolumePopulatorStatus.Status.QUEUED, 1);
+        ResticVolumePopulator second = create("c", "second", "restic", ResticVolumePopulatorStatus.Status.BOUND, 2);
+        List<ResticVolumePopulator> volumePopulators = List.of(second, active, first);
+
+        assertThat(admissionController.admit(second, volumePopulators), equalTo(new AdmissionController.Decision(false, 2)));
+        assertThat(admissionController.admit(first, volumePopulators), equalTo(new AdmissionController.Decision(false, 1)));
+
+        admissionController.release(active);
+
+        // the freed slot belongs to the earlier volume populator
+        assertThat(admissionController.admit(second, volumePopulators).admitted(), equalTo(false));
+        assertThat(admissionController.admit(first, volumePopulators).admitted(), equalTo(true));
+        assertThat(admissionController.admit(second, volumePopulators).admitted(), equalTo(false));
+    }
+
+    @Test
+    void testNamespaceLimitDoesNotBlockOtherNamespaces() {
+        applicationProperties.getAdmission().setMaxActivePerNamespace(1);
+
+        ResticVolumePopulator active = create("a", "active", "restic", ResticVolumePopulatorStatus.Status.PROVISIONING, 0);
+        ResticVolumePopulator sameNamespace = create("a", "same", "restic", ResticVolumePopulatorStatus.Status.BOUND, 1);
+        ResticVolumePopulator otherNamespace = create("b", "other", "restic", ResticVolumePopulatorStatus.Status.BOUND, 2);
+        List<ResticVolumePopulator> volumePopulators = List.of(active, sameNamespace, otherNamespace);
+
+        assertThat(admissionController.admit(sameNamespace, volumePopulators).admitted(), equalTo(false));
+        assertThat(admissionController.admit(otherNamespace, volumePopulators).admitted(), equalTo(true));
+    }
+
+    @Test
+    void testSecretLimit() {
+        applicationProperties.getAdmission().setMaxActivePerSecret(1);
+
+        ResticVolumePopulator active = create("a", "active", "bucket-1", ResticVolumePopulatorStatus.Status.PROVISIONING, 0);
+        ResticVolumePopulator sameSecret = create("a", "same", "bucket-1", ResticVolumePopulatorStatus.Status.BOUND, 1);
+        ResticVolumePopulator otherSecret = create("a", "other", "bucket-2", ResticVolumePopulatorStatus.Status.BOUND, 2);
+        List<ResticVolumePopulator> volumePopulators = List.of(active, sameSecret, otherSecret);
+
+        assertThat(admissionController.admit(sameSecret, volumePopulators).admitted(), equalTo(false));
+        assertThat(admissionController.admit(otherSecret, volumePopulators).admitted(), equalTo(true));
+    }
+
+    @Test
+    void testAdmissionHoldsSlotUntilCacheCatchesUp() {
+        applicationProperties.getAdmission().setMaxActive(1);
+
+        ResticVolumePopulator first = create("a", "first", "restic", ResticVolumePopulatorStatus.Status.BOUND, 0);
+        ResticVolumePopulator second = create("a", "second", "restic", ResticVolumePopulatorStatus.Status.BOUND, 1);
+        List<ResticVolumePopulator> volumePopulators = List.of(first, second);
+
+        assertThat(admissionController.admit(first, volumePopulators).admitted(), equalTo(true));
+        assertThat(admissionController.admit(second, volumePopulators), equalTo(new AdmissionController.Decision(false, 1)));
+        assertThat(admissionController.admit(first, volumePopulators).admitted(), equalTo(true));
+    }
+
+    @Test
+    void testPriorityOutweighsWaitingUntilAged() {
+        applicationProperties.getAdmission().setMaxActive(1);
+        applicationProperties.getReconcile().setPriorityAging(Duration.ofSeconds(10));
+
+        ResticVolumePopulator active = create("a", "active", "restic", ResticVolumePopulatorStatus.Status.PROVISIONING, 0);
+        ResticVolumePopulator logs = create("a", "logs", "restic", ResticVolumePopulatorStatus.Status.QUEUED, 100);
+        ResticVolumePopulator database = create("a", "database", "restic", ResticVolumePopulatorStatus.Status.BOUND, 105);
+        database.getSpec().setPriority(1);
+
+        assertThat(admissionController.admit(logs, List.of(active, logs, database)), equalTo(new AdmissionController.Decision(false, 2)));
+        assertThat(admissionController.admit(database, List.of(active, logs, database)), equalTo(new AdmissionController.Decision(false, 1)));
+
+        // waited 20s longer, more than one priority level
+        ResticVolumePopulator oldLogs = create("a", "logs", "restic", ResticVolumePopulatorStatus.Status.QUEUED, 85);
+        assertThat(admissionController.admit(oldLogs, List.of(active, oldLogs, database)), equalTo(new AdmissionController.Decision(false, 1)));
+    }
+
+    private static ResticVolumePopulator create(String namespace, String name, String secretName, ResticVolumePopulatorStatus.Status status, int initializedSecond) {
+        ResticVolumePopulatorSpec spec = new ResticVolumePopulatorSpec();
+        spec.setSecretName(secretName);
+
+        ResticVolumePopulatorStatus.Timestamps timestamps = new ResticVolumePopulatorStatus.Timestamps();
+        timestamps.setInitialized(Instant.ofEpochSecond(initializedSecond).toString());
+
+        ResticVolumePopulatorStatus volumePopulatorStatus = new ResticVolumePopulatorStatus();
+        volumePopulatorStatus.setStatus(status);
+        volumePopulatorStatus.setTimestamps(timestamps);
+
+        ResticVolumePopulator volumePopulator = new ResticVolumePopulator();
+        volumePopulator.getMetadata().setNamespace(namespace);
+        volumePopulator.getMetadata().setName(name);
+        volumePopulator.setSpec(spec);
+        volumePopulator.setStatus(volumePopulatorStatus);
+        return volumePopulator;
+    }
+}
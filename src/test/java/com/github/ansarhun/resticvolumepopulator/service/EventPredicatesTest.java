@@ -0,0 +1,119 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class EventPredicatesTest {
+
+    @Test
+    void testPodStatusHeartbeatIsFiltered() {
+        Pod oldPod = createPod("1", "Running", false);
+        Pod newPod = createPod("2", "Running", false);
+
+        assertThat(EventPredicates.isRelevantPodUpdate(oldPod, newPod), equalTo(false));
+    }
+
+    @Test
+    void testPodTerminationIsRelevant() {
+        Pod oldPod = createPod("1", "Running", false);
+        Pod newPod = createPod("2", "Running", true);
+
+        assertThat(EventPredicates.isRelevantPodUpdate(oldPod, newPod), equalTo(true));
+        assertThat(EventPredicates.isRelevantPodUpdate(oldPod, createPod("2", "Succeeded", false)), equalTo(true));
+    }
+
+    @Test
+    void testPvcPhaseAndVolumeChangesAreRelevant() {
+        PersistentVolumeClaim pending = createPvc("1", "Pending", null);
+
+        assertThat(EventPredicates.isRelevantPvcUpdate(pending, createPvc("2", "Pending", null)), equalTo(false));
+        assertThat(EventPredicates.isRelevantPvcUpdate(pending, createPvc("2", "Bound", null)), equalTo(true));
+        assertThat(EventPredicates.isRelevantPvcUpdate(pending, createPvc("2", "Pending", "pv")), equalTo(true));
+    }
+
+    @Test
+    void testPvcResyncIsRelevant() {
+        PersistentVolumeClaim pvc = createPvc("1", "Bound", "pv");
+
+        assertThat(EventPredicates.isRelevantPvcUpdate(pvc, pvc), equalTo(true));
+    }
+
+    @Test
+    void testVolumePopulatorProgressIsFiltered() {
+        ResticVolumePopulator provisioning = createVolumePopulator("1", ResticVolumePopulatorStatus.Status.PROVISIONING, 10);
+
+        assertThat(EventPredicates.isRelevantVolumePopulatorUpdate(provisioning, createVolumePopulator("2", ResticVolumePopulatorStatus.Status.PROVISIONING, 20)), equalTo(false));
+        assertThat(EventPredicates.isRelevantVolumePopulatorUpdate(provisioning, createVolumePopulator("2", ResticVolumePopulatorStatus.Status.CLEANUP, 100)), equalTo(true));
+        assertThat(EventPredicates.isRelevantVolumePopulatorUpdate(new ResticVolumePopulator(), provisioning), equalTo(true));
+    }
+
+    private static Pod createPod(String resourceVersion, String phase, boolean terminated) {
+        PodBuilder builder = new PodBuilder()
+                .withNewMetadata()
+                    .withName("prime-test")
+                    .withResourceVersion(resourceVersion)
+                .endMetadata();
+
+        if (terminated) {
+            return builder
+                    .withNewStatus()
+                        .withPhase(phase)
+                        .addNewContainerStatus()
+                            .withNewState()
+                                .withNewTerminated()
+                                    .withReason("Completed")
+                                .endTerminated()
+                            .endState()
+                        .endContainerStatus()
+                    .endStatus()
+                    .build();
+        }
+
+        return builder
+                .withNewStatus()
+                    .withPhase(phase)
+                    .addNewContainerStatus()
+                        .withNewState()
+                            .withNewRunning()
+                            .endRunning()
+                        .endState()
+                    .endContainerStatus()
+                .endStatus()
+                .build();
+    }
+
+    private static ResticVolumePopulator createVolumePopulator(String resourceVersion, ResticVolumePopulatorStatus.Status status, int percentDone) {
+        ResticVolumePopulatorStatus volumePopulatorStatus = new ResticVolumePopulatorStatus();
+        volumePopulatorStatus.setStatus(status);
+        volumePopulatorStatus.setPercentDone(percentDone);
+
+        ResticVolumePopulator volumePopulator = new ResticVolumePopulator();
+        volumePopulator.getMetadata().setName("test");
+        volumePopulator.getMetadata().setResourceVersion(resourceVersion);
+        volumePopulator.setStatus(volumePopulatorStatus);
+        return volumePopulator;
+    }
+
+    private static PersistentVolumeClaim createPvc(String resourceVersion, String phase, String volumeName) {
+        return new PersistentVolumeClaimBuilder()
+                .withNewMetadata()
+                    .withName("test")
+                    .withResourceVersion(resourceVersion)
+                .endMetadata()
+                .withNewSpec()
+                    .withVolumeName(volumeName)
+                .endSpec()
+                .withNewStatus()
+                    .withPhase(phase)
+                .endStatus()
+                .build();
+    }
+}
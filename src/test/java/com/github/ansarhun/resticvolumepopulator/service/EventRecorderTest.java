@@ -0,0 +1,96 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import io.fabric8.kubernetes.api.model.ObjectReference;
+import io.fabric8.kubernetes.api.model.ObjectReferenceBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+class EventRecorderTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private static final ObjectReference RESTORE = reference("restore", "uid-1");
+    private static final ObjectReference OTHER_RESTORE = reference("other", "uid-2");
+
+    @Test
+    void testGroupKeepsDistinctNotesApart() {
+        EventRecorder.PendingEvent podCreated = event(RESTORE, "Prime Pod created prime-1", 0);
+        EventRecorder.PendingEvent pvcCreated = event(RESTORE, "Prime PVC created prime-1", 1);
+        EventRecorder.PendingEvent podCreatedAgain = event(RESTORE, "Prime Pod created prime-1", 2);
+
+        Map<EventRecorder.SeriesKey, List<EventRecorder.PendingEvent>> grouped =
+                EventRecorder.group(List.of(podCreated, pvcCreated, podCreatedAgain));
+
+        assertThat(grouped.keySet(), contains(podCreated.seriesKey(), pvcCreated.seriesKey()));
+        assertThat(grouped.get(podCreated.seriesKey()), contains(podCreated, podCreatedAgain));
+        assertThat(grouped.get(pvcCreated.seriesKey()), contains(pvcCreated));
+    }
+
+    @Test
+    void testGroupSeparatesObjects() {
+        EventRecorder.PendingEvent restore = event(RESTORE, "Prime Pod removed", 0);
+        EventRecorder.PendingEvent otherRestore = event(OTHER_RESTORE, "Prime Pod removed", 0);
+
+        assertThat(restore.seriesKey(), not(equalTo(otherRestore.seriesKey())));
+        assertThat(EventRecorder.group(List.of(restore, otherRestore)).keySet(), hasSize(2));
+    }
+
+    @Test
+    void testSeriesCountsRepeatedEvents() {
+        EventRecorder.SeriesTracker tracker = new EventRecorder.SeriesTracker(Duration.ofMinutes(6));
+        EventRecorder.SeriesKey key = event(RESTORE, "Prime Pod removed", 0).seriesKey();
+
+        assertThat(tracker.observe(key, NOW, 1), nullValue());
+        EventRecorder.Series started = new EventRecorder.Series("a", "restore.1");
+        tracker.started(key, started, NOW, 1);
+
+        EventRecorder.Series series = tracker.observe(key, NOW.plusSeconds(60), 2);
+        assertThat(series, sameInstance(started));
+        assertThat(series.getCount(), equalTo(3));
+        assertThat(series.getLastObserved(), equalTo(NOW.plusSeconds(60)));
+    }
+
+    @Test
+    void testSeriesEndsAfterWindow() {
+        EventRecorder.SeriesTracker tracker = new EventRecorder.SeriesTracker(Duration.ofMinutes(6));
+        EventRecorder.SeriesKey key = event(RESTORE, "Prime Pod removed", 0).seriesKey();
+        tracker.started(key, new EventRecorder.Series("a", "restore.1"), NOW, 1);
+
+        assertThat(tracker.observe(key, NOW.plus(Duration.ofMinutes(7)), 1), nullValue());
+        // the expired series is not resumed by a later occurrence either
+        assertThat(tracker.observe(key, NOW.plus(Duration.ofMinutes(8)), 1), nullValue());
+    }
+
+    @Test
+    void testSeriesOfOtherNoteIsNotContinued() {
+        EventRecorder.SeriesTracker tracker = new EventRecorder.SeriesTracker(Duration.ofMinutes(6));
+        tracker.started(event(RESTORE, "Prime Pod created prime-1", 0).seriesKey(), new EventRecorder.Series("a", "restore.1"), NOW, 1);
+
+        assertThat(tracker.observe(event(RESTORE, "Prime PVC created prime-1", 1).seriesKey(), NOW.plusSeconds(1), 1), nullValue());
+    }
+
+    private static EventRecorder.PendingEvent event(ObjectReference regarding, String note, int second) {
+        return new EventRecorder.PendingEvent(regarding, "Provision", note, NOW.plusSeconds(second), null);
+    }
+
+    private static ObjectReference reference(String name, String uid) {
+        return new ObjectReferenceBuilder()
+                .withKind("ResticVolumePopulator")
+                .withNamespace("a")
+                .withName(name)
+                .withUid(uid)
+                .build();
+    }
+}
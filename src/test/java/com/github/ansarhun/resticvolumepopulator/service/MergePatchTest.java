@@ -0,0 +1,58 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.equalTo;
+
+class MergePatchTest {
+
+    @Test
+    void testEqualObjectsGiveEmptyPatch() {
+        Map<String, Object> status = Map.of("status", "BOUND", "boundPVC", "default/pvc");
+
+        assertThat(MergePatch.diff(status, Map.copyOf(status)), anEmptyMap());
+    }
+
+    @Test
+    void testChangedAndAddedFields() {
+        Map<String, Object> original = Map.of("status", "BOUND", "boundPVC", "default/pvc");
+        Map<String, Object> modified = Map.of(
+                "status", "PROVISIONING",
+                "boundPVC", "default/pvc",
+                "primePod", "default/prime-pvc"
+        );
+
+        assertThat(
+                MergePatch.diff(original, modified),
+                equalTo(Map.of("status", "PROVISIONING", "primePod", "default/prime-pvc"))
+        );
+    }
+
+    @Test
+    void testRemovedFieldsAreNulled() {
+        Map<String, Object> original = Map.of("status", "CLEANUP", "primePod", "default/prime-pvc");
+        Map<String, Object> modified = Map.of("status", "FINISHED");
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("status", "FINISHED");
+        expected.put("primePod", null);
+
+        assertThat(MergePatch.diff(original, modified), equalTo(expected));
+    }
+
+    @Test
+    void testNestedObjectsOnlyContainChanges() {
+        Map<String, Object> original = Map.of("progress", Map.of("percentDone", 10, "totalBytes", 100));
+        Map<String, Object> modified = Map.of("progress", Map.of("percentDone", 20, "totalBytes", 100));
+
+        assertThat(
+                MergePatch.diff(original, modified),
+                equalTo(Map.of("progress", Map.of("percentDone", 20)))
+        );
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class PodLogTailTest {
+
+    @Test
+    void testKeepsOnlyLastLines() throws IOException {
+        String log = IntStream
+                .range(0, 10_000)
+                .mapToObj(i -> "restored file " + i)
+                .collect(Collectors.joining("\n"));
+
+        PodLogTail tail = PodLogTail.read(new StringReader(log), 3, 100);
+
+        assertThat(tail.getTotalLines(), equalTo(10_000L));
+        assertThat(tail.toString(), equalTo("restored file 9997\nrestored file 9998\nrestored file 9999"));
+    }
+
+    @Test
+    void testMatchesSignatureOutsideOfTail() throws IOException {
+        String log = "Fatal: unable to open config file: Stat: The specified key does not exist.\n" +
+                "Is there a repository at the following location?\n" +
+                "s3:http://minio:9000/test/lorem\n";
+
+        PodLogTail tail = PodLogTail.read(new StringReader(log), 1, 100);
+
+        assertThat(tail.contains(PodLogTail.Signature.UNINITIALIZED_REPOSITORY), equalTo(true));
+        assertThat(tail.toString(), equalTo("s3:http://minio:9000/test/lorem"));
+    }
+
+    @Test
+    void testSummaryIsBounded() throws IOException {
+        String log = "a".repeat(10_000) + "\n" + "b".repeat(10_000);
+
+        PodLogTail tail = PodLogTail.read(new StringReader(log), 10, 500);
+        String summary = tail.summary(200);
+
+        assertThat(summary.length(), lessThanOrEqualTo(200));
+        assertThat(summary, startsWith("..."));
+        assertThat(summary, endsWith("bbb"));
+    }
+}
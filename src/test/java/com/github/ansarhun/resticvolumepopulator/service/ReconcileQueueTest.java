@@ -0,0 +1,322 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class ReconcileQueueTest {
+
+    @Test
+    void testPendingDuplicatesAreCollapsed() throws InterruptedException {
+        ReconcileQueue<String> queue = new ReconcileQueue<>();
+
+        queue.add("a");
+        queue.add("b");
+        queue.add("a");
+        queue.add("a");
+
+        assertThat(queue.size(), equalTo(2));
+        assertThat(queue.getAddedCount(), equalTo(4L));
+        assertThat(queue.getDeduplicatedCount(), equalTo(2L));
+
+        assertThat(queue.take(), equalTo("a"));
+        assertThat(queue.take(), equalTo("b"));
+    }
+
+    @Test
+    void testKeyAddedWhileProcessingIsQueuedAfterDone() throws InterruptedException {
+        ReconcileQueue<String> queue = new ReconcileQueue<>();
+
+        queue.add("a");
+        assertThat(queue.take(), equalTo("a"));
+
+        queue.add("a");
+        queue.add("a");
+        assertThat(queue.size(), equalTo(0));
+        assertThat(queue.processingSize(), equalTo(1));
+
+        queue.done("a");
+        assertThat(queue.size(), equalTo(1));
+        assertThat(queue.take(), equalTo("a"));
+
+        queue.done("a");
+        assertThat(queue.size(), equalTo(0));
+        assertThat(queue.processingSize(), equalTo(0));
+    }
+
+    @Test
+    void testKeysOfBusyLaneWaitUntilDone() throws InterruptedException {
+        ReconcileQueue<String> queue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(Duration.ZERO, Duration.ZERO, 1_000, 1_000),
+                (key, wait) -> {},
+                key -> 0,
+                Duration.ofMinutes(1),
+                key -> "",
+                namespace -> 1,
+                key -> key.split(":")[1]
+        );
+
+        queue.add("pvc:a");
+        queue.add("vp:a");
+        queue.add("vp:b");
+
+        assertThat(queue.take(), equalTo("pvc:a"));
+        assertThat(queue.take(), equalTo("vp:b"));
+        assertThat(queue.size(), equalTo(1));
+
+        queue.add("vp:a");
+        assertThat(queue.getDeduplicatedCount(), equalTo(1L));
+
+        queue.done("vp:b");
+        assertThat(queue.size(), equalTo(1));
+
+        queue.done("pvc:a");
+        assertThat(queue.take(), equalTo("vp:a"));
+        assertThat(queue.size(), equalTo(0));
+        assertThat(queue.processingSize(), equalTo(1));
+    }
+
+    @Test
+    void testParallelWorkersNeverShareKey() throws InterruptedException {
+        ReconcileQueue<Integer> queue = new ReconcileQueue<>();
+        Set<Integer> inProgress = ConcurrentHashMap.newKeySet();
+        AtomicBoolean overlap = new AtomicBoolean();
+        AtomicInteger processed = new AtomicInteger();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executorService.execute(() -> {
+                try {
+                    Integer key;
+                    while ((key = queue.take()) != null) {
+                        if (!inProgress.add(key)) {
+                            overlap.set(true);
+                        }
+                        Thread.sleep(1);
+                        inProgress.remove(key);
+                        processed.incrementAndGet();
+                        queue.done(key);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            queue.add(i % 8);
+        }
+
+        while (queue.size() > 0 || queue.processingSize() > 0) {
+            Thread.sleep(10);
+        }
+        queue.shutdown();
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS), equalTo(true));
+
+        assertThat(overlap.get(), equalTo(false));
+        assertThat(processed.get() <= 1_000, equalTo(true));
+    }
+
+    @Test
+    void testDelayedAddKeepsEarliestDeadline() throws InterruptedException {
+        ReconcileQueue<String> queue = new ReconcileQueue<>();
+
+        queue.addAfter("a", Duration.ofMinutes(1));
+        queue.addAfter("a", Duration.ofMillis(10));
+        queue.addAfter("a", Duration.ofMinutes(2));
+        assertThat(queue.delayedSize(), equalTo(1));
+
+        assertThat(queue.take(), equalTo("a"));
+        assertThat(queue.delayedSize(), equalTo(0));
+        queue.shutdown();
+    }
+
+    @Test
+    void testShutdownReleasesWorkers() throws InterruptedException {
+        ReconcileQueue<String> queue = new ReconcileQueue<>();
+
+        queue.add("a");
+        queue.shutdown();
+        queue.add("b");
+
+        assertThat(queue.take(), nullValue());
+    }
+
+    @Test
+    void testWaitTimeObservedOncePerTake() throws InterruptedException {
+        List<Duration> waits = new ArrayList<>();
+        ReconcileQueue<String> queue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(Duration.ZERO, Duration.ZERO, 1_000, 1_000),
+                waits::add
+        );
+
+        queue.add("a");
+        queue.add("a");
+        Thread.sleep(20);
+
+        assertThat(queue.take(), equalTo("a"));
+        assertThat(waits.size(), equalTo(1));
+        assertThat(waits.getFirst(), greaterThanOrEqualTo(Duration.ofMillis(20)));
+        assertThat(queue.getWait("a"), equalTo(waits.getFirst()));
+
+        queue.add("a");
+        queue.done("a");
+        assertThat(queue.take(), equalTo("a"));
+        assertThat(waits.size(), equalTo(2));
+
+        queue.done("a");
+        assertThat(queue.getWait("a"), equalTo(Duration.ZERO));
+    }
+
+    @Test
+    void testHigherPriorityIsTakenFirst() throws InterruptedException {
+        Map<String, Integer> priorities = Map.of("high", 10, "low", -1);
+        ReconcileQueue<String> queue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(Duration.ZERO, Duration.ZERO, 1_000, 1_000),
+                wait -> {},
+                key -> priorities.getOrDefault(key, 0),
+                Duration.ofMinutes(1)
+        );
+
+        queue.add("low");
+        queue.add("a");
+        queue.add("high");
+        queue.add("b");
+
+        assertThat(queue.take(), equalTo("high"));
+        assertThat(queue.take(), equalTo("a"));
+        assertThat(queue.take(), equalTo("b"));
+        assertThat(queue.take(), equalTo("low"));
+    }
+
+    @Test
+    void testWaitingKeysAgeIntoHigherPriority() throws InterruptedException {
+        ReconcileQueue<String> queue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(Duration.ZERO, Duration.ZERO, 1_000, 1_000),
+                wait -> {},
+                key -> key.equals("high") ? 1 : 0,
+                Duration.ofMillis(10)
+        );
+
+        queue.add("old");
+        Thread.sleep(30);
+        queue.add("high");
+
+        assertThat(queue.take(), equalTo("old"));
+        assertThat(queue.take(), equalTo("high"));
+    }
+
+    @Test
+    void testNamespacesShareWorkersByWeight() throws InterruptedException {
+        Map<String, List<Duration>> waits = new ConcurrentHashMap<>();
+        ReconcileQueue<String> queue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(Duration.ZERO, Duration.ZERO, 1_000, 1_000),
+                (key, wait) -> waits.computeIfAbsent(key.split("/")[0], namespace -> new ArrayList<>()).add(wait),
+                key -> 0,
+                Duration.ofMinutes(1),
+                key -> key.split("/")[0],
+                namespace -> namespace.equals("heavy") ? 2 : 1
+        );
+
+        for (int i = 0; i < 4; i++) {
+            queue.add("big/" + i);
+        }
+        queue.add("small/a");
+        queue.add("small/b");
+        for (int i = 0; i < 3; i++) {
+            queue.add("heavy/" + i);
+        }
+
+        List<String> taken = new ArrayList<>();
+        while (queue.size() > 0) {
+            String key = queue.take();
+            taken.add(key);
+            queue.done(key);
+        }
+
+        assertThat(taken, equalTo(List.of(
+                "big/0", "small/a", "heavy/0", "heavy/1",
+                "big/1", "small/b", "heavy/2",
+                "big/2", "big/3"
+        )));
+        assertThat(waits.get("small").size(), equalTo(2));
+    }
+
+    @Test
+    void testPriorityAppliesAcrossNamespaces() throws InterruptedException {
+        ReconcileQueue<String> queue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(Duration.ZERO, Duration.ZERO, 1_000, 1_000),
+                (key, wait) -> {},
+                key -> key.startsWith("urgent/") ? 1_000 : key.startsWith("bulk/") ? -1_000 : 0,
+                Duration.ofMinutes(1),
+                key -> key.split("/")[0],
+                namespace -> 1
+        );
+
+        for (int i = 0; i < 3; i++) {
+            queue.add("bulk/" + i);
+        }
+        for (int i = 0; i < 3; i++) {
+            queue.add("urgent/" + i);
+        }
+        queue.add("default/a");
+
+        List<String> taken = new ArrayList<>();
+        while (queue.size() > 0) {
+            String key = queue.take();
+            taken.add(key);
+            queue.done(key);
+        }
+
+        assertThat(taken, equalTo(List.of(
+                "urgent/0", "urgent/1", "urgent/2",
+                "default/a",
+                "bulk/0", "bulk/1", "bulk/2"
+        )));
+    }
+
+    @Test
+    void testNamespacePassedOverForPriorityDoesNotTakeTurnsInARow() throws InterruptedException {
+        ReconcileQueue<String> queue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(Duration.ZERO, Duration.ZERO, 1_000, 1_000),
+                (key, wait) -> {},
+                key -> key.startsWith("a/urgent") ? 1 : 0,
+                Duration.ofMinutes(1),
+                key -> key.split("/")[0],
+                namespace -> 1
+        );
+
+        queue.add("b/0");
+        queue.add("b/1");
+        for (int i = 0; i < 3; i++) {
+            queue.add("a/urgent" + i);
+        }
+        queue.add("a/0");
+        queue.add("a/1");
+
+        List<String> taken = new ArrayList<>();
+        while (queue.size() > 0) {
+            String key = queue.take();
+            taken.add(key);
+            queue.done(key);
+        }
+
+        assertThat(taken, equalTo(List.of("a/urgent0", "a/urgent1", "a/urgent2", "b/0", "a/0", "b/1", "a/1")));
+    }
+}
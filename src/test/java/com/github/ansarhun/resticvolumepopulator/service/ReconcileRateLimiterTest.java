@@ -0,0 +1,42 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+class ReconcileRateLimiterTest {
+
+    @Test
+    void testBackoffDoublesPerKeyUntilMax() {
+        ReconcileRateLimiter<String> rateLimiter =
+                new ReconcileRateLimiter<>(Duration.ofMillis(100), Duration.ofSeconds(1), 1_000, 1_000);
+
+        assertThat(rateLimiter.when("a"), equalTo(Duration.ofMillis(100)));
+        assertThat(rateLimiter.when("a"), equalTo(Duration.ofMillis(200)));
+        assertThat(rateLimiter.when("a"), equalTo(Duration.ofMillis(400)));
+        assertThat(rateLimiter.when("a"), equalTo(Duration.ofMillis(800)));
+        assertThat(rateLimiter.when("a"), equalTo(Duration.ofSeconds(1)));
+        assertThat(rateLimiter.when("b"), equalTo(Duration.ofMillis(100)));
+
+        assertThat(rateLimiter.getFailures("a"), equalTo(5));
+        assertThat(rateLimiter.size(), equalTo(2));
+
+        rateLimiter.forget("a");
+        assertThat(rateLimiter.getFailures("a"), equalTo(0));
+        assertThat(rateLimiter.when("a"), equalTo(Duration.ofMillis(100)));
+    }
+
+    @Test
+    void testGlobalBucketLimitsRetriesAfterBurst() {
+        ReconcileRateLimiter<String> rateLimiter =
+                new ReconcileRateLimiter<>(Duration.ZERO, Duration.ZERO, 1, 2);
+
+        assertThat(rateLimiter.when("a"), equalTo(Duration.ZERO));
+        assertThat(rateLimiter.when("b"), equalTo(Duration.ZERO));
+        assertThat(rateLimiter.when("c"), greaterThan(Duration.ofMillis(500)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+class ReconcileRequestTest {
+
+    private static final ResourceId VOLUME_POPULATOR_ID = new ResourceId("a", "restore");
+
+    @Test
+    void testResumeUninitializedReconcilesVolumePopulator() {
+        assertThat(
+                ReconcileRequest.resume(create(null, null)),
+                contains(ReconcileRequest.volumePopulator(VOLUME_POPULATOR_ID))
+        );
+        assertThat(
+                ReconcileRequest.resume(create(ResticVolumePopulatorStatus.Status.UNINITIALIZED, null)),
+                contains(ReconcileRequest.volumePopulator(VOLUME_POPULATOR_ID))
+        );
+    }
+
+    @Test
+    void testResumeProvisioningReconcilesBoundPvc() {
+        assertThat(
+                ReconcileRequest.resume(create(ResticVolumePopulatorStatus.Status.PROVISIONING, "a/data")),
+                contains(
+                        ReconcileRequest.volumePopulator(VOLUME_POPULATOR_ID),
+                        ReconcileRequest.pvc(new ResourceId("a", "data"))
+                )
+        );
+    }
+
+    private static ResticVolumePopulator create(ResticVolumePopulatorStatus.Status status, String boundPvc) {
+        ResticVolumePopulator volumePopulator = new ResticVolumePopulator();
+        volumePopulator.getMetadata().setNamespace(VOLUME_POPULATOR_ID.namespace());
+        volumePopulator.getMetadata().setName(VOLUME_POPULATOR_ID.name());
+
+        if (status != null) {
+            ResticVolumePopulatorStatus volumePopulatorStatus = new ResticVolumePopulatorStatus();
+            volumePopulatorStatus.setStatus(status);
+            volumePopulatorStatus.setBoundPVC(boundPvc);
+            volumePopulator.setStatus(volumePopulatorStatus);
+        }
+        return volumePopulator;
+    }
+}
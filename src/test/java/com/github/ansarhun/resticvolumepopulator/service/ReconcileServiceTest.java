@@ -0,0 +1,325 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.ansarhun.resticvolumepopulator.component.CRDBootstrap;
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import com.github.ansarhun.resticvolumepopulator.event.ResourceEventDispatcher;
+import com.github.ansarhun.resticvolumepopulator.informer.InformerGroup;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorSpec;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/// Drives `reconcilePVC` through the restore states against the CRUD mock server. The informers are never started,
+/// every read goes to the API server, and the test plays the kubelet and the PV controller.
+@EnableKubernetesMockClient(crud = true)
+class ReconcileServiceTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String NAME = "restore";
+
+    static KubernetesClient client;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResourceId pvcId = new ResourceId(NAMESPACE, NAME);
+    private final ResourceId volumePopulatorId = new ResourceId(NAMESPACE, NAME);
+
+    private volatile boolean failStatusWrites;
+
+    private ReconcileQueue<ReconcileRequest> reconcileQueue;
+    private ReconcileService reconcileService;
+
+    @BeforeEach
+    void setUp() {
+        new CRDBootstrap(client).loadCRD();
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getReconcile().setWorkers(1);
+        applicationProperties.getReconcile().setWaitInterval(Duration.ofMillis(50));
+        applicationProperties.getReconcile().setResyncPeriods(Map.of());
+        applicationProperties.getProgress().setEnabled(false);
+
+        ApiCallMetrics apiCallMetrics = new ApiCallMetrics(ObservationRegistry.NOOP) {
+            @Override
+            public <T> T call(String verb, String resource, Supplier<T> call) {
+                if (failStatusWrites && resource.equals("resticvolumepopulators/status")) {
+                    throw new KubernetesClientException("status write failed", 500, null);
+                }
+                return super.call(verb, resource, call);
+            }
+        };
+
+        ResourceCache resourceCache = new ResourceCache(
+                client,
+                apiCallMetrics,
+                new InformerGroup<>(List.of(), namespace -> client.pods().inAnyNamespace().runnableInformer(0)),
+                new InformerGroup<>(List.of(), namespace -> client.persistentVolumeClaims().inAnyNamespace().runnableInformer(0)),
+                new InformerGroup<>(List.of(), namespace -> client.resources(ResticVolumePopulator.class).inAnyNamespace().runnableInformer(0))
+        );
+        ShardMembership shardMembership = new ShardMembership(applicationProperties, client, event -> {}, meterRegistry);
+
+        reconcileQueue = new ReconcileQueue<>(
+                new ReconcileRateLimiter<>(Duration.ofMillis(10), Duration.ofMillis(100), 1_000, 1_000)
+        );
+        reconcileService = new ReconcileService(
+                applicationProperties,
+                Executors.newSingleThreadExecutor(),
+                reconcileQueue,
+                new ResourceEventDispatcher(),
+                client,
+                apiCallMetrics,
+                new ReconcileMetrics(meterRegistry),
+                resourceCache,
+                new RestoreProgressTracker(client, apiCallMetrics, new ObjectMapper(), applicationProperties, resourceCache, shardMembership),
+                new EventRecorder(applicationProperties, client, apiCallMetrics, meterRegistry, ObservationRegistry.NOOP) {
+                    @Override
+                    public void record(HasMetadata regarding, String reason, String note) {
+                    }
+                },
+                shardMembership,
+                new AdmissionController(applicationProperties, resourceCache),
+                meterRegistry,
+                ObservationRegistry.NOOP
+        );
+        reconcileService.startWorkers();
+
+        createRestore();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconcileService.drainWorkers();
+
+        client.resources(ResticVolumePopulator.class).inNamespace(NAMESPACE).delete();
+        client.persistentVolumeClaims().inNamespace(NAMESPACE).delete();
+        client.pods().inNamespace(NAMESPACE).delete();
+        client.persistentVolumes().delete();
+    }
+
+    @Test
+    void testRestoreRecordsTimestampsAndPhasesOnce() throws InterruptedException {
+        reconcileUntil(() -> status() == ResticVolumePopulatorStatus.Status.PROVISIONING);
+
+        // the prime pod finishes before a reconcile saw it running
+        Instant startedAt = Instant.now();
+        Thread.sleep(50);
+        Instant finishedAt = Instant.now();
+        terminatePrimePod(startedAt.toString(), finishedAt.toString());
+        String volumeName = bindPrimePvc();
+        reconcileUntil(() -> status() == ResticVolumePopulatorStatus.Status.CLEANUP);
+
+        assertThat(
+                client.persistentVolumes().withName(volumeName).get().getSpec().getClaimRef().getName(),
+                equalTo(NAME)
+        );
+
+        setPvcPhase("prime-" + NAME, "Lost");
+        reconcileUntil(() -> status() == ResticVolumePopulatorStatus.Status.FINISHED);
+
+        ResticVolumePopulatorStatus.Timestamps timestamps = volumePopulator().getStatus().getTimestamps();
+        assertThat(timestamps.getInitialized(), notNullValue());
+        assertThat(timestamps.getPrimeCreated(), notNullValue());
+        assertThat(timestamps.getPrimePodStarted(), equalTo(startedAt.toString()));
+        assertThat(timestamps.getPrimePodTerminated(), equalTo(finishedAt.toString()));
+        assertThat(timestamps.getPvRebound(), notNullValue());
+        assertThat(timestamps.getCleanupFinished(), notNullValue());
+
+        for (String phase : List.of("initialize", "provision", "schedule", "restore", "rebind", "cleanup", "total")) {
+            assertThat(phase, phaseTimer(phase), notNullValue());
+            assertThat(phase, phaseTimer(phase).count(), equalTo(1L));
+        }
+        assertThat(
+                phaseTimer("restore").totalTime(TimeUnit.NANOSECONDS),
+                equalTo((double) Duration.between(startedAt, finishedAt).toNanos())
+        );
+    }
+
+    @Test
+    void testPhaseRecordedOnlyAfterStatusWritten() throws InterruptedException {
+        ReconcileRequest request = ReconcileRequest.pvc(pvcId);
+
+        failStatusWrites = true;
+        reconcileQueue.add(request);
+        await(() -> reconcileQueue.getRetries(request) > 0);
+
+        assertThat(volumePopulator().getStatus(), nullValue());
+        assertThat(phaseTimer("initialize"), nullValue());
+
+        failStatusWrites = false;
+        reconcileUntil(() -> status() != ResticVolumePopulatorStatus.Status.UNINITIALIZED);
+
+        assertThat(volumePopulator().getStatus().getTimestamps().getInitialized(), notNullValue());
+        assertThat(phaseTimer("initialize").count(), equalTo(1L));
+    }
+
+    /// region Helpers
+
+    private void createRestore() {
+        ResticVolumePopulatorSpec spec = new ResticVolumePopulatorSpec();
+        spec.setSecretName("restic");
+        spec.setHostname(NAME);
+
+        ResticVolumePopulator volumePopulator = new ResticVolumePopulator();
+        volumePopulator.getMetadata().setName(NAME);
+        volumePopulator.getMetadata().setNamespace(NAMESPACE);
+        volumePopulator.setSpec(spec);
+        client.resources(ResticVolumePopulator.class).inNamespace(NAMESPACE).resource(volumePopulator).create();
+
+        client.persistentVolumeClaims()
+                .inNamespace(NAMESPACE)
+                .resource(
+                        new PersistentVolumeClaimBuilder()
+                                .withNewMetadata()
+                                    .withName(NAME)
+                                    .withNamespace(NAMESPACE)
+                                    .withCreationTimestamp(Instant.now().toString())
+                                .endMetadata()
+                                .withNewSpec()
+                                    .withAccessModes("ReadWriteOnce")
+                                    .withNewResources()
+                                        .addToRequests("storage", new Quantity("1Gi"))
+                                    .endResources()
+                                    .withNewDataSourceRef()
+                                        .withApiGroup(ResourceIndexes.RESTC_VOLUME_POPULATOR_API_GROUP)
+                                        .withKind(ResourceIndexes.RESTC_VOLUME_POPULATOR_KIND)
+                                        .withName(NAME)
+                                    .endDataSourceRef()
+                                .endSpec()
+                                .build()
+                )
+                .create();
+        setPvcPhase(NAME, "Pending");
+    }
+
+    private void terminatePrimePod(String startedAt, String finishedAt) {
+        client.pods()
+                .inNamespace(NAMESPACE)
+                .withName("prime-" + NAME)
+                .editStatus(pod -> new PodBuilder(pod)
+                        .withNewStatus()
+                            .withPhase("Succeeded")
+                            .addNewContainerStatus()
+                                .withName("restic")
+                                .withNewState()
+                                    .withNewTerminated()
+                                        .withReason("Completed")
+                                        .withExitCode(0)
+                                        .withStartedAt(startedAt)
+                                        .withFinishedAt(finishedAt)
+                                    .endTerminated()
+                                .endState()
+                            .endContainerStatus()
+                        .endStatus()
+                        .build());
+    }
+
+    /// Binds a new volume to the prime PVC, returns the name of the volume
+    private String bindPrimePvc() {
+        String primeName = "prime-" + NAME;
+        String volumeName = "pv-" + primeName;
+
+        PersistentVolumeClaim primePvc = client.persistentVolumeClaims().inNamespace(NAMESPACE).withName(primeName).get();
+        client.persistentVolumes()
+                .resource(
+                        new PersistentVolumeBuilder()
+                                .withNewMetadata()
+                                    .withName(volumeName)
+                                .endMetadata()
+                                .withNewSpec()
+                                    .withClaimRef(
+                                            new ObjectReferenceBuilder()
+                                                    .withName(primeName)
+                                                    .withNamespace(NAMESPACE)
+                                                    .withUid(primePvc.getMetadata().getUid())
+                                                    .build()
+                                    )
+                                .endSpec()
+                                .build()
+                )
+                .create();
+
+        client.persistentVolumeClaims()
+                .inNamespace(NAMESPACE)
+                .withName(primeName)
+                .edit(pvc -> new PersistentVolumeClaimBuilder(pvc)
+                        .editSpec().withVolumeName(volumeName).endSpec()
+                        .build());
+        setPvcPhase(primeName, "Bound");
+
+        return volumeName;
+    }
+
+    private void setPvcPhase(String name, String phase) {
+        client.persistentVolumeClaims()
+                .inNamespace(NAMESPACE)
+                .withName(name)
+                .editStatus(pvc -> new PersistentVolumeClaimBuilder(pvc)
+                        .withNewStatus().withPhase(phase).endStatus()
+                        .build());
+    }
+
+    /// Reconciles the PVC whenever the queue is idle until `condition` holds
+    private void reconcileUntil(BooleanSupplier condition) throws InterruptedException {
+        await(() -> {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+
+            if (reconcileQueue.size() == 0 && reconcileQueue.processingSize() == 0 && reconcileQueue.delayedSize() == 0) {
+                reconcileQueue.add(ReconcileRequest.pvc(pvcId));
+            }
+            return false;
+        });
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        Instant deadline = Instant.now().plusSeconds(10);
+        while (!condition.getAsBoolean()) {
+            assertThat("condition met within 10s", Instant.now().isBefore(deadline), equalTo(true));
+            Thread.sleep(20);
+        }
+    }
+
+    private ResticVolumePopulator volumePopulator() {
+        return client
+                .resources(ResticVolumePopulator.class)
+                .inNamespace(volumePopulatorId.namespace())
+                .withName(volumePopulatorId.name())
+                .get();
+    }
+
+    private ResticVolumePopulatorStatus.Status status() {
+        ResticVolumePopulatorStatus status = volumePopulator().getStatus();
+        return status != null ? status.getStatus() : ResticVolumePopulatorStatus.Status.UNINITIALIZED;
+    }
+
+    private Timer phaseTimer(String phase) {
+        return meterRegistry.find("restore.phase.duration").tag("phase", phase).timer();
+    }
+
+    /// endregion
+}
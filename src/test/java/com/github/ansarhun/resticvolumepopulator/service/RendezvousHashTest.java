@@ -0,0 +1,62 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+class RendezvousHashTest {
+
+    private static final List<String> NAMESPACES = IntStream
+            .range(0, 1000)
+            .mapToObj(i -> "namespace-" + i)
+            .toList();
+
+    @Test
+    void testOwnerIndependentOfMemberOrder() {
+        for (String namespace : NAMESPACES) {
+            assertThat(
+                    RendezvousHash.owner(List.of("a", "b", "c"), namespace),
+                    equalTo(RendezvousHash.owner(List.of("c", "a", "b"), namespace))
+            );
+        }
+    }
+
+    @Test
+    void testNoMembers() {
+        assertThat(RendezvousHash.owner(List.of(), "default"), nullValue());
+    }
+
+    @Test
+    void testNamespacesSpreadOverMembers() {
+        Map<String, Integer> owned = new HashMap<>();
+        for (String namespace : NAMESPACES) {
+            owned.merge(RendezvousHash.owner(List.of("a", "b", "c", "d"), namespace), 1, Integer::sum);
+        }
+
+        assertThat(owned.keySet(), containsInAnyOrder("a", "b", "c", "d"));
+        owned.values().forEach(count -> assertThat(count, both(greaterThan(150)).and(lessThan(350))));
+    }
+
+    @Test
+    void testLeavingMemberOnlyMovesItsNamespaces() {
+        for (String namespace : NAMESPACES) {
+            String before = RendezvousHash.owner(List.of("a", "b", "c"), namespace);
+            String after = RendezvousHash.owner(List.of("a", "b"), namespace);
+
+            if (!before.equals("c")) {
+                assertThat(after, equalTo(before));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class RestoreProgressTrackerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testParseStatusLine() {
+        RestoreProgressTracker.RestoreProgress progress = RestoreProgressTracker.parse(
+                objectMapper,
+                "{\"message_type\":\"status\",\"seconds_elapsed\":4,\"percent_done\":0.425,\"total_files\":10,\"files_restored\":4,\"total_bytes\":1000,\"bytes_restored\":400}"
+        );
+
+        assertThat(progress.percentDone(), equalTo(42));
+        assertThat(progress.bytesRestored(), equalTo(400L));
+        assertThat(progress.totalBytes(), equalTo(1000L));
+        assertThat(progress.filesRestored(), equalTo(4L));
+        assertThat(progress.totalFiles(), equalTo(10L));
+        assertThat(progress.bytesPerSecond(), equalTo(100L));
+        assertThat(progress.summary(), equalTo(false));
+    }
+
+    @Test
+    void testParseSummaryLine() {
+        RestoreProgressTracker.RestoreProgress progress = RestoreProgressTracker.parse(
+                objectMapper,
+                "{\"message_type\":\"summary\",\"seconds_elapsed\":0,\"total_files\":10,\"files_restored\":10,\"total_bytes\":1000,\"bytes_restored\":1000}"
+        );
+
+        assertThat(progress.percentDone(), equalTo(100));
+        assertThat(progress.bytesPerSecond(), nullValue());
+        assertThat(progress.summary(), equalTo(true));
+    }
+
+    @Test
+    void testIgnoreOtherLines() {
+        assertThat(RestoreProgressTracker.parse(objectMapper, "restoring <Snapshot 1234> to /mnt"), nullValue());
+        assertThat(RestoreProgressTracker.parse(objectMapper, "{\"message_type\":\"verbose_status\"}"), nullValue());
+        assertThat(RestoreProgressTracker.parse(objectMapper, "{broken"), nullValue());
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.config.ApplicationProperties;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@EnableKubernetesMockClient(crud = true)
+class ShardMembershipTest {
+
+    static KubernetesClient client;
+
+    private ApplicationProperties applicationProperties;
+    private List<Object> publishedEvents;
+    private ShardMembership shardMembership;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSharding().setEnabled(true);
+
+        publishedEvents = new CopyOnWriteArrayList<>();
+        shardMembership = new ShardMembership(applicationProperties, client, publishedEvents::add, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardMembership.stop();
+    }
+
+    @Test
+    void testOwnsNamespacesOnceStarted() {
+        assertThat(shardMembership.owns("a"), equalTo(false));
+
+        shardMembership.start();
+
+        // the informers start right after, their initial events must not be dropped
+        assertThat(shardMembership.getMembers(), hasSize(1));
+        assertThat(shardMembership.owns("a"), equalTo(true));
+        assertThat(publishedEvents, contains(instanceOf(ShardMembership.ShardsChangedEvent.class)));
+    }
+
+    @Test
+    void testExpiredLeasesOfTheGroupAreDeleted() {
+        String group = applicationProperties.getSharding().getGroup();
+        ZonedDateTime hourAgo = ZonedDateTime.now().minusHours(1);
+
+        client.leases().resource(lease(group + "-crashed", group, "crashed", hourAgo)).create();
+        client.leases().resource(lease("other-crashed", "other", "crashed", hourAgo)).create();
+
+        shardMembership.start();
+
+        assertThat(shardMembership.getMembers(), hasSize(1));
+        assertThat(client.leases().withName(group + "-crashed").get(), nullValue());
+        assertThat(client.leases().withName("other-crashed").get(), notNullValue());
+    }
+
+    private static Lease lease(String name, String group, String holderIdentity, ZonedDateTime renewTime) {
+        return new LeaseBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withLabels(Map.of(ShardMembership.SHARD_GROUP_LABEL_KEY, group))
+                .endMetadata()
+                .withNewSpec()
+                    .withHolderIdentity(holderIdentity)
+                    .withLeaseDurationSeconds(15)
+                    .withRenewTime(renewTime)
+                .endSpec()
+                .build();
+    }
+}
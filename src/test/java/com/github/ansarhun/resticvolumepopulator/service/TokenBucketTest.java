@@ -0,0 +1,50 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class TokenBucketTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void testTryAcquireRefillsAfterBurst() {
+        TokenBucket bucket = new TokenBucket(1, 2, nanoTime::get);
+
+        assertThat(bucket.tryAcquire(), equalTo(true));
+        assertThat(bucket.tryAcquire(), equalTo(true));
+        assertThat(bucket.tryAcquire(), equalTo(false));
+
+        nanoTime.addAndGet(Duration.ofMillis(500).toNanos());
+        assertThat(bucket.tryAcquire(), equalTo(false));
+
+        nanoTime.addAndGet(Duration.ofMillis(500).toNanos());
+        assertThat(bucket.tryAcquire(), equalTo(true));
+        assertThat(bucket.tryAcquire(), equalTo(false));
+    }
+
+    @Test
+    void testRefillCappedAtBurst() {
+        TokenBucket bucket = new TokenBucket(1, 2, nanoTime::get);
+
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThat(bucket.tryAcquire(), equalTo(true));
+        assertThat(bucket.tryAcquire(), equalTo(true));
+        assertThat(bucket.tryAcquire(), equalTo(false));
+    }
+
+    @Test
+    void testReserveReturnsWaitTime() {
+        TokenBucket bucket = new TokenBucket(2, 1, nanoTime::get);
+
+        assertThat(bucket.reserve(), equalTo(Duration.ZERO));
+        assertThat(bucket.reserve(), equalTo(Duration.ofMillis(500)));
+        assertThat(bucket.reserve(), equalTo(Duration.ofSeconds(1)));
+        assertThat(bucket.tryAcquire(), equalTo(false));
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.ansarhun.resticvolumepopulator.service;
+
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulator;
+import com.github.ansarhun.resticvolumepopulator.k8s.ResticVolumePopulatorStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+class WrittenObjectsTest {
+
+    private static final ResourceId ID = new ResourceId("a", "restore");
+
+    private final WrittenObjects<ResticVolumePopulator> writtenObjects = new WrittenObjects<>();
+
+    @Test
+    void testPassAfterStatusWriteReadsWrittenVersion() {
+        ResticVolumePopulator stored = create("1", ResticVolumePopulatorStatus.Status.UNINITIALIZED);
+        ResticVolumePopulator written = create("2", ResticVolumePopulatorStatus.Status.BOUND);
+
+        writtenObjects.written("1", written);
+
+        // the next status patch carries resource version 2 and does not conflict, initialize does not run again
+        ResticVolumePopulator read = writtenObjects.resolve(ID, stored);
+        assertThat(read.getMetadata().getResourceVersion(), equalTo("2"));
+        assertThat(read.getStatus().getStatus(), equalTo(ResticVolumePopulatorStatus.Status.BOUND));
+    }
+
+    @Test
+    void testStoreWinsOnceCaughtUp() {
+        writtenObjects.written("1", create("2", ResticVolumePopulatorStatus.Status.BOUND));
+
+        ResticVolumePopulator delivered = create("2", ResticVolumePopulatorStatus.Status.BOUND);
+        assertThat(writtenObjects.resolve(ID, delivered), sameInstance(delivered));
+
+        // changed again by someone else, the entry is gone and must not shadow the newer version
+        ResticVolumePopulator stale = create("1", ResticVolumePopulatorStatus.Status.UNINITIALIZED);
+        assertThat(writtenObjects.resolve(ID, stale), sameInstance(stale));
+    }
+
+    @Test
+    void testStoreWinsWhenChangedByOthers() {
+        writtenObjects.written("1", create("2", ResticVolumePopulatorStatus.Status.BOUND));
+
+        ResticVolumePopulator newer = create("3", ResticVolumePopulatorStatus.Status.BOUND);
+        assertThat(writtenObjects.resolve(ID, newer), sameInstance(newer));
+    }
+
+    @Test
+    void testDeletedObjectIsNotResurrected() {
+        writtenObjects.written("1", create("2", ResticVolumePopulatorStatus.Status.BOUND));
+
+        assertThat(writtenObjects.resolve(ID, null), nullValue());
+    }
+
+    private static ResticVolumePopulator create(String resourceVersion, ResticVolumePopulatorStatus.Status status) {
+        ResticVolumePopulatorStatus volumePopulatorStatus = new ResticVolumePopulatorStatus();
+        volumePopulatorStatus.setStatus(status);
+
+        ResticVolumePopulator volumePopulator = new ResticVolumePopulator();
+        volumePopulator.getMetadata().setNamespace(ID.namespace());
+        volumePopulator.getMetadata().setName(ID.name());
+        volumePopulator.getMetadata().setResourceVersion(resourceVersion);
+        volumePopulator.setStatus(volumePopulatorStatus);
+        return volumePopulator;
+    }
+}